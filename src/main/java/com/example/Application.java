@@ -1,13 +1,17 @@
 package com.example;
 
 import com.vaadin.flow.component.page.AppShellConfigurator;
+import com.vaadin.flow.component.page.Push;
 import com.vaadin.flow.server.AppShellSettings;
 import com.vaadin.flow.theme.Theme;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 @Theme("default")
+@Push // Progreso de las exportaciones en segundo plano (ExportJobService)
 public class Application implements AppShellConfigurator {
 
     public static void main(String[] args) {
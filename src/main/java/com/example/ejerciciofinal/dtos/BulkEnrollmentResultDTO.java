@@ -0,0 +1,135 @@
+package com.example.ejerciciofinal.dtos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de una inscripción masiva: qué pasó con cada estudiante recibido
+ * (y, en modo sincronización, con cada inscrito que no estaba en la lista)
+ */
+public class BulkEnrollmentResultDTO {
+
+    private Long courseId;
+    private List<Entry> entries = new ArrayList<>();
+
+    public BulkEnrollmentResultDTO() {
+    }
+
+    public BulkEnrollmentResultDTO(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public void add(String identifier, Long studentId, Status status) {
+        entries.add(new Entry(identifier, studentId, status));
+    }
+
+    public void addWaitlisted(String identifier, Long studentId, Long waitlistPosition) {
+        Entry entry = new Entry(identifier, studentId, Status.WAITLISTED);
+        entry.setWaitlistPosition(waitlistPosition);
+        entries.add(entry);
+    }
+
+    /**
+     * Cantidad de estudiantes con el estado indicado
+     */
+    public long count(Status status) {
+        return entries.stream().filter(entry -> entry.getStatus() == status).count();
+    }
+
+    // Getters y Setters
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    // ===== CLASES INTERNAS =====
+
+    /**
+     * Estado de un estudiante después de la inscripción masiva
+     */
+    public enum Status {
+        ADDED("Inscrito"),
+        REMOVED("Dado de baja"),
+        ALREADY_ENROLLED("Ya estaba inscrito"),
+        DUPLICATE("Repetido en la lista"),
+        UNKNOWN("No existe"),
+        WAITLISTED("En lista de espera"),
+        ALREADY_WAITING("Ya estaba en lista de espera");
+
+        private final String label;
+
+        Status(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * Resultado de un estudiante
+     * identifier es el valor tal como se recibió (ID o número de estudiante)
+     * studentId es null si no se encontró al estudiante
+     * waitlistPosition solo está en WAITLISTED (comienza en 1)
+     */
+    public static class Entry {
+
+        private String identifier;
+        private Long studentId;
+        private Status status;
+        private Long waitlistPosition;
+
+        public Entry() {
+        }
+
+        public Entry(String identifier, Long studentId, Status status) {
+            this.identifier = identifier;
+            this.studentId = studentId;
+            this.status = status;
+        }
+
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        public void setIdentifier(String identifier) {
+            this.identifier = identifier;
+        }
+
+        public Long getStudentId() {
+            return studentId;
+        }
+
+        public void setStudentId(Long studentId) {
+            this.studentId = studentId;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public void setStatus(Status status) {
+            this.status = status;
+        }
+
+        public Long getWaitlistPosition() {
+            return waitlistPosition;
+        }
+
+        public void setWaitlistPosition(Long waitlistPosition) {
+            this.waitlistPosition = waitlistPosition;
+        }
+    }
+}
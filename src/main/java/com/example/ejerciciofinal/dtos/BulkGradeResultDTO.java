@@ -0,0 +1,94 @@
+package com.example.ejerciciofinal.dtos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de una carga masiva de notas en un curso
+ */
+public class BulkGradeResultDTO {
+
+    private Long courseId;
+    private int updated;
+    private int unchanged;
+    private List<Rejected> rejected = new ArrayList<>();
+
+    public BulkGradeResultDTO() {
+    }
+
+    public BulkGradeResultDTO(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public void reject(String identifier, String reason) {
+        rejected.add(new Rejected(identifier, reason));
+    }
+
+    // Getters y Setters
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public void setUnchanged(int unchanged) {
+        this.unchanged = unchanged;
+    }
+
+    public List<Rejected> getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(List<Rejected> rejected) {
+        this.rejected = rejected;
+    }
+
+    // ===== CLASES INTERNAS =====
+
+    /**
+     * Nota que no se aplicó: el estudiante tal como se recibió (ID, número de estudiante o línea del CSV) y el motivo
+     */
+    public static class Rejected {
+
+        private String identifier;
+        private String reason;
+
+        public Rejected() {
+        }
+
+        public Rejected(String identifier, String reason) {
+            this.identifier = identifier;
+            this.reason = reason;
+        }
+
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        public void setIdentifier(String identifier) {
+            this.identifier = identifier;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public void setReason(String reason) {
+            this.reason = reason;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.ejerciciofinal.dtos;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO compacto para las tarjetas de cursos de ProfessorCoursesView y StudentCoursesView
+ * Las estadísticas vienen de los contadores del curso, no se recorren los Seat
+ * studentMark/studentYear solo se completan en las tarjetas del estudiante
+ * roster solo se completa en las tarjetas del profesor
+ */
+public class CourseCardDTO {
+
+    private Long id;
+    private String name;
+    private String professorName;
+
+    private int capacity;
+    private int occupied;
+    private int gradedCount;
+    private double averageMark;
+
+    // Seat del estudiante que ve la tarjeta
+    private Double studentMark;
+    private LocalDate studentYear;
+
+    // Estudiantes inscritos, ordenados por nombre
+    private List<RosterEntryDTO> roster = new ArrayList<>();
+
+    public CourseCardDTO() {
+    }
+
+    /**
+     * Constructor para las tarjetas del profesor
+     */
+    public CourseCardDTO(Long id, String name, String professorName, int capacity, int occupied,
+            int gradedCount, double markSum) {
+        this.id = id;
+        this.name = name;
+        this.professorName = professorName;
+        this.capacity = capacity;
+        this.occupied = occupied;
+        this.gradedCount = gradedCount;
+        this.averageMark = gradedCount > 0 ? markSum / gradedCount : 0.0;
+    }
+
+    /**
+     * Constructor para las tarjetas del estudiante, incluye su nota y año de inscripción
+     */
+    public CourseCardDTO(Long id, String name, String professorName, int capacity, int occupied,
+            int gradedCount, double markSum, Double studentMark, LocalDate studentYear) {
+        this(id, name, professorName, capacity, occupied, gradedCount, markSum);
+        this.studentMark = studentMark;
+        this.studentYear = studentYear;
+    }
+
+    // Getters y Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getProfessorName() {
+        return professorName;
+    }
+
+    public void setProfessorName(String professorName) {
+        this.professorName = professorName;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getOccupied() {
+        return occupied;
+    }
+
+    public void setOccupied(int occupied) {
+        this.occupied = occupied;
+    }
+
+    public int getAvailableSeats() {
+        return Math.max(0, capacity - occupied);
+    }
+
+    public int getGradedCount() {
+        return gradedCount;
+    }
+
+    public void setGradedCount(int gradedCount) {
+        this.gradedCount = gradedCount;
+    }
+
+    public double getAverageMark() {
+        return averageMark;
+    }
+
+    public void setAverageMark(double averageMark) {
+        this.averageMark = averageMark;
+    }
+
+    public Double getStudentMark() {
+        return studentMark;
+    }
+
+    public void setStudentMark(Double studentMark) {
+        this.studentMark = studentMark;
+    }
+
+    public LocalDate getStudentYear() {
+        return studentYear;
+    }
+
+    public void setStudentYear(LocalDate studentYear) {
+        this.studentYear = studentYear;
+    }
+
+    public List<RosterEntryDTO> getRoster() {
+        return roster;
+    }
+
+    public void setRoster(List<RosterEntryDTO> roster) {
+        this.roster = roster;
+    }
+}
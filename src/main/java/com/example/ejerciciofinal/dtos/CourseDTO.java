@@ -15,17 +15,30 @@ public class CourseDTO {
     private Long professorId;
     private String professorName;
 
-    // Lista simplificada de seats (sin datos anidados)
+    // Cantidad máxima de estudiantes del curso
+    private int capacity;
+
+    // Contadores del curso: inscriptos, notas cargadas y promedio
+    private int occupied;
+    private int gradedCount;
+    private double averageMark;
+
+    // Lista simplificada de seats ocupados (sin datos anidados)
     private Set<SeatDTO> seats;
 
     public CourseDTO() {
     }
 
-    public CourseDTO(Long id, String name, Long professorId, String professorName, Set<SeatDTO> seats) {
+    public CourseDTO(Long id, String name, Long professorId, String professorName, int capacity,
+            int occupied, int gradedCount, double averageMark, Set<SeatDTO> seats) {
         this.id = id;
         this.name = name;
         this.professorId = professorId;
         this.professorName = professorName;
+        this.capacity = capacity;
+        this.occupied = occupied;
+        this.gradedCount = gradedCount;
+        this.averageMark = averageMark;
         this.seats = seats;
     }
 
@@ -62,6 +75,38 @@ public class CourseDTO {
         this.professorName = professorName;
     }
 
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getOccupied() {
+        return occupied;
+    }
+
+    public void setOccupied(int occupied) {
+        this.occupied = occupied;
+    }
+
+    public int getGradedCount() {
+        return gradedCount;
+    }
+
+    public void setGradedCount(int gradedCount) {
+        this.gradedCount = gradedCount;
+    }
+
+    public double getAverageMark() {
+        return averageMark;
+    }
+
+    public void setAverageMark(double averageMark) {
+        this.averageMark = averageMark;
+    }
+
     public Set<SeatDTO> getSeats() {
         return seats;
     }
@@ -0,0 +1,22 @@
+package com.example.ejerciciofinal.dtos;
+
+/**
+ * Proyección de solo lectura de un curso para el listado de cursos (ListCoursesView)
+ * Spring Data la arma desde las columnas de la consulta, sin cargar Course, Professor ni Seat
+ */
+public interface CourseSummary {
+
+    Long getId();
+
+    String getName();
+
+    String getProfessorName();
+
+    int getCapacity();
+
+    int getOccupied();
+
+    default int getAvailableSeats() {
+        return Math.max(0, getCapacity() - getOccupied());
+    }
+}
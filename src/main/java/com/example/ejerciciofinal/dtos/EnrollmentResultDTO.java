@@ -0,0 +1,88 @@
+package com.example.ejerciciofinal.dtos;
+
+/**
+ * Resultado de inscribir a un estudiante en un curso: inscrito, o anotado en la lista de espera
+ * si el curso estaba lleno (con su posición en la lista), o todavía en proceso si no terminó a tiempo
+ */
+public class EnrollmentResultDTO {
+
+    private Long courseId;
+    private Long studentId;
+    private Status status;
+    // Solo para WAITLISTED, comienza en 1
+    private Long waitlistPosition;
+
+    public EnrollmentResultDTO() {
+    }
+
+    public EnrollmentResultDTO(Long courseId, Long studentId, Status status, Long waitlistPosition) {
+        this.courseId = courseId;
+        this.studentId = studentId;
+        this.status = status;
+        this.waitlistPosition = waitlistPosition;
+    }
+
+    public static EnrollmentResultDTO enrolled(Long courseId, Long studentId) {
+        return new EnrollmentResultDTO(courseId, studentId, Status.ENROLLED, null);
+    }
+
+    public static EnrollmentResultDTO waitlisted(Long courseId, Long studentId, long position) {
+        return new EnrollmentResultDTO(courseId, studentId, Status.WAITLISTED, position);
+    }
+
+    public static EnrollmentResultDTO pending(Long courseId, Long studentId) {
+        return new EnrollmentResultDTO(courseId, studentId, Status.PENDING, null);
+    }
+
+    // Getters y Setters
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(Long studentId) {
+        this.studentId = studentId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getWaitlistPosition() {
+        return waitlistPosition;
+    }
+
+    public void setWaitlistPosition(Long waitlistPosition) {
+        this.waitlistPosition = waitlistPosition;
+    }
+
+    // ===== CLASES INTERNAS =====
+
+    public enum Status {
+        ENROLLED("Inscrito"),
+        WAITLISTED("En lista de espera"),
+        // La inscripción se está aplicando y puede confirmarse más tarde
+        PENDING("En proceso");
+
+        private final String label;
+
+        Status(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.ejerciciofinal.dtos;
+
+import java.util.Objects;
+
+/**
+ * DTO mínimo para los selectores (ComboBox) de cursos y profesores
+ * Solo id y texto a mostrar, se arma directamente en la consulta
+ */
+public class LookupDTO {
+
+    private Long id;
+    private String label;
+
+    public LookupDTO() {
+    }
+
+    public LookupDTO(Long id, String label) {
+        this.id = id;
+        this.label = label;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    /*
+     * El ComboBox con carga lazy compara los items por equals: dos lookups son el mismo si tienen el mismo id
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LookupDTO other)) {
+            return false;
+        }
+        return Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
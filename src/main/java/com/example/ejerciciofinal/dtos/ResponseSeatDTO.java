@@ -7,6 +7,7 @@ public class ResponseSeatDTO {
     private LocalDate year;
     private CreateUserDTO.StudentDTO student;
     private Double mark;
+    private Long version;
 
     public ResponseSeatDTO() {
     }
@@ -33,6 +34,14 @@ public class ResponseSeatDTO {
         this.mark = mark;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public CreateUserDTO.StudentDTO getStudent() {
         return student;
     }
@@ -0,0 +1,91 @@
+package com.example.ejerciciofinal.dtos;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * DTO de solo lectura con un estudiante inscrito en un curso y su Seat en ese curso
+ * Se arma directamente en la consulta (constructor JPQL), sin cargar Student ni Seat
+ */
+public class RosterEntryDTO {
+
+    private Long courseId;
+    private Long studentId;
+    private String studentName;
+    private String studentNumber;
+    private Double mark;
+    private LocalDate year;
+    // Versión del Seat al leerlo, se envía al guardar la nota para detectar ediciones concurrentes
+    private Long seatVersion;
+
+    public RosterEntryDTO() {
+    }
+
+    public RosterEntryDTO(Long courseId, Long studentId, String studentName, UUID studentNumber,
+            Double mark, LocalDate year, Long seatVersion) {
+        this.courseId = courseId;
+        this.studentId = studentId;
+        this.studentName = studentName;
+        this.studentNumber = studentNumber != null ? studentNumber.toString() : null;
+        this.mark = mark;
+        this.year = year;
+        this.seatVersion = seatVersion;
+    }
+
+    // Getters y Setters
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(Long studentId) {
+        this.studentId = studentId;
+    }
+
+    public String getStudentName() {
+        return studentName;
+    }
+
+    public void setStudentName(String studentName) {
+        this.studentName = studentName;
+    }
+
+    public String getStudentNumber() {
+        return studentNumber;
+    }
+
+    public void setStudentNumber(String studentNumber) {
+        this.studentNumber = studentNumber;
+    }
+
+    public Double getMark() {
+        return mark;
+    }
+
+    public void setMark(Double mark) {
+        this.mark = mark;
+    }
+
+    public LocalDate getYear() {
+        return year;
+    }
+
+    public void setYear(LocalDate year) {
+        this.year = year;
+    }
+
+    public Long getSeatVersion() {
+        return seatVersion;
+    }
+
+    public void setSeatVersion(Long seatVersion) {
+        this.seatVersion = seatVersion;
+    }
+}
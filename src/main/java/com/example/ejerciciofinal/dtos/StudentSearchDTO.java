@@ -46,7 +46,7 @@ public class StudentSearchDTO {
      * formato será: "Id: 1 - Juan Perez - #1234"
      */
     public String getDisplayLabel() {
-        return String.format("ID: %d - %s - #%s", id, name, studentNumber);
+        return "ID: " + id + " - " + name + " - #" + studentNumber;
     }
 
     /*
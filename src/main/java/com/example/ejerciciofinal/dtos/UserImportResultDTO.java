@@ -0,0 +1,130 @@
+package com.example.ejerciciofinal.dtos;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de una importación de usuarios desde un archivo CSV/TSV
+ * Las filas rechazadas completas quedan en rejectedReport (un CSV temporal), en memoria solo se guardan
+ * las primeras para mostrarlas en pantalla
+ */
+public class UserImportResultDTO {
+
+    public static final int PREVIEW_SIZE = 100;
+
+    private int students;
+    private int professors;
+    private int admins;
+    private int rejected;
+    private List<RejectedRow> rejectedPreview = new ArrayList<>();
+    private File rejectedReport;
+
+    public UserImportResultDTO() {
+    }
+
+    public int getImported() {
+        return students + professors + admins;
+    }
+
+    public void addRejected(RejectedRow row) {
+        rejected++;
+        if (rejectedPreview.size() < PREVIEW_SIZE) {
+            rejectedPreview.add(row);
+        }
+    }
+
+    // Getters y Setters
+    public int getStudents() {
+        return students;
+    }
+
+    public void setStudents(int students) {
+        this.students = students;
+    }
+
+    public int getProfessors() {
+        return professors;
+    }
+
+    public void setProfessors(int professors) {
+        this.professors = professors;
+    }
+
+    public int getAdmins() {
+        return admins;
+    }
+
+    public void setAdmins(int admins) {
+        this.admins = admins;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<RejectedRow> getRejectedPreview() {
+        return rejectedPreview;
+    }
+
+    public void setRejectedPreview(List<RejectedRow> rejectedPreview) {
+        this.rejectedPreview = rejectedPreview;
+    }
+
+    public File getRejectedReport() {
+        return rejectedReport;
+    }
+
+    public void setRejectedReport(File rejectedReport) {
+        this.rejectedReport = rejectedReport;
+    }
+
+    // ===== CLASES INTERNAS =====
+
+    /**
+     * Fila rechazada: número de línea en el archivo, motivo y contenido original
+     */
+    public static class RejectedRow {
+
+        private int line;
+        private String reason;
+        private String content;
+
+        public RejectedRow() {
+        }
+
+        public RejectedRow(int line, String reason, String content) {
+            this.line = line;
+            this.reason = reason;
+            this.content = content;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public void setLine(int line) {
+            this.line = line;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public void setReason(String reason) {
+            this.reason = reason;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public void setContent(String content) {
+            this.content = content;
+        }
+    }
+}
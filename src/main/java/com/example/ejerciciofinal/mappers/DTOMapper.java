@@ -133,6 +133,10 @@ public class DTOMapper {
             course.getName(),
             course.getProfessor() != null ? course.getProfessor().getId() : null,
             course.getProfessor() != null ? course.getProfessor().getName() : null,
+            course.getCapacity(),
+            course.getOccupied(),
+            course.getGradedCount(),
+            course.getAverageMark(),
             toSeatDTOs(course.getSeats())
         );
     }
@@ -1,9 +1,14 @@
 package com.example.ejerciciofinal.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import jakarta.persistence.*;
 
 @Entity
 @Table(name = "addresses")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "addresses")
 public class Address {
 
 
@@ -1,7 +1,6 @@
 package com.example.ejerciciofinal.model;
 
 import jakarta.persistence.*;
-import java.time.LocalDate;
 import java.util.Set;
 import java.util.HashSet;
 
@@ -16,10 +15,37 @@ public class Course {
     @Column(name = "name", nullable = false)
     private String name;
 
+    // Cantidad máxima de estudiantes, los Seat se crean recién al inscribir a un estudiante
+    @Column(name = "capacity", nullable = false, columnDefinition = "integer default 0")
+    private int capacity;
+
+    /*
+     * Contadores desnormalizados para mostrar ocupación y promedio sin cargar los Seat
+     * Se actualizan en la misma transacción que inscribe, desinscribe o califica (ver CourseRepository)
+     * y CounterReconciler corrige cualquier diferencia contra la tabla seats
+     */
+    @Column(name = "occupied", nullable = false, columnDefinition = "integer default 0")
+    private int occupied;
+
+    @Column(name = "graded_count", nullable = false, columnDefinition = "integer default 0")
+    private int gradedCount;
+
+    @Column(name = "mark_sum", nullable = false, columnDefinition = "double precision default 0")
+    private double markSum;
+
+    // Control de concurrencia optimista, los UPDATE de los contadores en CourseRepository también lo incrementan
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public Long getId() {
         return id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public String getName() {
         return name;
     }
@@ -28,6 +54,52 @@ public class Course {
         this.name = name;
     }
 
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getOccupied() {
+        return occupied;
+    }
+
+    public int getAvailableSeats() {
+        return capacity - occupied;
+    }
+
+    public int getGradedCount() {
+        return gradedCount;
+    }
+
+    public double getMarkSum() {
+        return markSum;
+    }
+
+    /**
+     * Promedio de las notas cargadas en el curso, 0 si todavía no hay notas
+     */
+    public double getAverageMark() {
+        return gradedCount == 0 ? 0.0 : markSum / gradedCount;
+    }
+
+    /**
+     * Recalcula los contadores a partir de los Seat cargados en memoria
+     * Solo para cursos cuyos Seat ya están cargados, por ejemplo al crearlos
+     */
+    public void recalculateCounters() {
+        this.occupied = seats.size();
+        this.gradedCount = (int) seats.stream()
+                .filter(seat -> seat.getMark() != null)
+                .count();
+        this.markSum = seats.stream()
+                .filter(seat -> seat.getMark() != null)
+                .mapToDouble(Seat::getMark)
+                .sum();
+    }
+
     public Professor getProfessor() {
         return professor;
     }
@@ -58,28 +130,20 @@ public class Course {
         this.name = name;
         this.professor = professor;
         this.seats = seats;
+        this.capacity = seats.size();
+        recalculateCounters();
     }
 
     /**
-     * Constructor para crear un curso con una cantidad específica de cupos vacíos
+     * Constructor para crear un curso con una capacidad determinada y sin inscriptos
      * @param name Nombre del curso
      * @param professor Profesor asignado
-     * @param numberOfSeats Cantidad de cupos a crear
+     * @param capacity Cantidad máxima de estudiantes
      */
-    public Course(String name, Professor professor, int numberOfSeats) {
+    public Course(String name, Professor professor, int capacity) {
         this.name = name;
         this.professor = professor;
+        this.capacity = capacity;
         this.seats = new HashSet<>();
-        
-        // Crear cupos vacíos (sin estudiantes asignados)
-        for (int i = 0; i < numberOfSeats; i++) {
-            Seat seat = new Seat(
-                LocalDate.now(), // Año actual
-                null,            // Sin nota inicial
-                null,            // Sin estudiante asignado
-                this             // Curso actual
-            );
-            this.seats.add(seat);
-        }
     }
 }
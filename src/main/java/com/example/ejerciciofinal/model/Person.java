@@ -5,6 +5,8 @@ import jakarta.persistence.*;
 @Entity
 @Table(name = "persons")
 @Inheritance(strategy = InheritanceType.JOINED)
+// Sin cache de segundo nivel: Student comparte la región de la jerarquía y sus contadores de notas se actualizan
+// con UPDATE nativos sobre students, que invalidarían la región completa con cada calificación
 public abstract class Person {
 
     @Id
@@ -23,6 +25,11 @@ public abstract class Person {
     @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private Address address;
 
+    // Control de concurrencia optimista de Person, Student y Professor (JPA solo lo admite en la raíz de la jerarquía)
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public Person(String name, String phone, String email, Address address) {
         this.name = name;
         this.phone = phone;
@@ -37,6 +44,10 @@ public abstract class Person {
         return id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public String getName() {
         return name;
     }
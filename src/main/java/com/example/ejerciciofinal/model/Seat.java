@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "seats")
+@Table(name = "seats", uniqueConstraints = {
+    // Un estudiante no puede ocupar dos cupos del mismo curso (year es la fecha de inscripción, no forma parte)
+    @UniqueConstraint(name = "uk_seats_student_course", columnNames = {"student_id", "course_id"})
+})
 public class Seat {
 
     @Id
@@ -25,10 +28,19 @@ public class Seat {
     @JoinColumn(name = "course_id", nullable = false)
     private Course course;
 
+    // Control de concurrencia optimista: dos ediciones simultáneas de la nota no se pisan en silencio
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public Long getId() {
         return id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public LocalDate getYear() {
         return year;
     }
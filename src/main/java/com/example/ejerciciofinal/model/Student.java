@@ -16,6 +16,16 @@ public class Student extends Person {
     @Column(name = "avg_mark", nullable = false)
     private Double avgMark;
 
+    /*
+     * Suma y cantidad de notas cargadas, permiten actualizar avgMark en O(1) aplicando
+     * solo la diferencia de cada nota (ver StudentRepository.applyMarkDelta)
+     */
+    @Column(name = "mark_sum", nullable = false, columnDefinition = "double precision default 0")
+    private double markSum;
+
+    @Column(name = "graded_count", nullable = false, columnDefinition = "integer default 0")
+    private int gradedCount;
+
     @OneToMany(mappedBy = "student", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Seat> seats = new HashSet<>();
 
@@ -23,7 +33,7 @@ public class Student extends Person {
         super(name, phone, email, address);
         this.studentNumber = UUID.randomUUID(); // Generar UUID automáticamente
         this.seats = seats;
-        this.avgMark = this.calculateAvgMark();
+        this.recalculateMarkCounters();
     }
 
     public UUID getStudentNumber() {
@@ -38,37 +48,44 @@ public class Student extends Person {
         this.avgMark = avgMark;
     }
 
+    public double getMarkSum() {
+        return markSum;
+    }
+
+    public int getGradedCount() {
+        return gradedCount;
+    }
+
     public Set<Seat> getSeats() {
         return seats;
     }
 
     public void setSeats(Set<Seat> seats) {
         this.seats = seats;
-        this.avgMark = this.calculateAvgMark();
+        this.recalculateMarkCounters();
     }
 
-    protected Student() { // To keep Hibernate happy
+    /**
+     * Recalcula suma, cantidad y promedio recorriendo todos los Seat (requiere la colección cargada)
+     */
+    public void recalculateMarkCounters() {
+        double sum = 0.0;
+        int count = 0;
+        for (Seat seat : this.seats) {
+            if (seat.getMark() != null) {
+                sum += seat.getMark();
+                count++;
+            }
+        }
+        this.markSum = sum;
+        this.gradedCount = count;
+        this.avgMark = averageOf(sum, count);
     }
 
-    public Double calculateAvgMark() {
-        if (this.seats.isEmpty()) {
-            return 0.0;
-        }
-        
-        // Filtrar solo los seats que tienen nota (mark != null)
-        long seatsWithMark = this.seats.stream()
-            .filter(seat -> seat.getMark() != null)
-            .count();
-        
-        if (seatsWithMark == 0) {
-            return 0.0;
-        }
-        
-        Double total = this.seats.stream()
-            .filter(seat -> seat.getMark() != null)
-            .mapToDouble(Seat::getMark)
-            .sum();
-        
-        return total / seatsWithMark;
+    private static double averageOf(double markSum, int gradedCount) {
+        return gradedCount == 0 ? 0.0 : markSum / gradedCount;
+    }
+
+    protected Student() { // To keep Hibernate happy
     }
 }
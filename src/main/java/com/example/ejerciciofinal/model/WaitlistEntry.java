@@ -0,0 +1,56 @@
+package com.example.ejerciciofinal.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Estudiante esperando un lugar en un curso lleno
+ * El orden de la lista es el del id (identity): el primero en anotarse es el primero en ser promovido
+ */
+@Entity
+@Table(name = "waitlist_entries", uniqueConstraints = {
+    // Un estudiante está una sola vez en la lista de espera de cada curso
+    @UniqueConstraint(name = "uk_waitlist_course_student", columnNames = {"course_id", "student_id"})
+})
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "course_id", nullable = false)
+    private Course course;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "student_id", nullable = false)
+    private Student student;
+
+    @Column(name = "requested_at", nullable = false)
+    private LocalDateTime requestedAt;
+
+    public WaitlistEntry(Course course, Student student, LocalDateTime requestedAt) {
+        this.course = course;
+        this.student = student;
+        this.requestedAt = requestedAt;
+    }
+
+    protected WaitlistEntry() { // To keep Hibernate happy
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Course getCourse() {
+        return course;
+    }
+
+    public Student getStudent() {
+        return student;
+    }
+
+    public LocalDateTime getRequestedAt() {
+        return requestedAt;
+    }
+}
@@ -1,15 +1,27 @@
 package com.example.ejerciciofinal.repository;
 
+import com.example.ejerciciofinal.dtos.CourseCardDTO;
+import com.example.ejerciciofinal.dtos.CourseSummary;
+import com.example.ejerciciofinal.dtos.LookupDTO;
 import com.example.ejerciciofinal.model.Course;
 import com.example.ejerciciofinal.model.Professor;
 
-import org.springframework.data.domain.Page;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CourseRepository extends JpaRepository<Course, Long> {
@@ -19,12 +31,22 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     List<Course> findByProfessorId(Long professorId);
     
     /**
-     * Obtiene todos los cursos paginados con Professor y Seats cargados (EAGER)
-     * Evita LazyInitializationException al acceder a professor.getName(), seats.size() y seats.student
+     * Obtiene la página siguiente de cursos por clave (id > lastId) como CourseSummary
+     * A diferencia de la paginación por offset, el costo no crece con la profundidad de la página
+     * Solo trae las columnas que muestra el listado, la ocupación se lee de los contadores del curso
      */
-    @Override
-    @EntityGraph(attributePaths = {"professor", "seats", "seats.student"})
-    Page<Course> findAll(Pageable pageable);
+    @Query("SELECT c.id AS id, c.name AS name, p.name AS professorName, c.capacity AS capacity, "
+            + "c.occupied AS occupied "
+            + "FROM Course c LEFT JOIN c.professor p "
+            + "WHERE c.id > :lastId ORDER BY c.id ASC")
+    List<CourseSummary> findSummariesAfter(@Param("lastId") Long lastId, Limit limit);
+
+    /**
+     * Obtiene solo los ids ordenados, se usa para ubicar el id en un offset dado
+     * cuando no se llegó a esa posición recorriendo páginas anteriores
+     */
+    @Query("SELECT c.id FROM Course c ORDER BY c.id ASC")
+    List<Long> findIdsOrderedById(Pageable pageable);
     
     /**
      * Obtiene todos los cursos (sin paginación) con Professor y Seats cargados (EAGER)
@@ -34,5 +56,105 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     @Override
     @EntityGraph(attributePaths = {"professor", "seats", "seats.student"})
     List<Course> findAll();
+
+    /**
+     * Cursos (id, nombre) cuyo nombre coincide con el patrón ILIKE, para los selectores
+     * Usa el índice trigram de courses.name creado por la migración V2 (db/migration)
+     */
+    @Query("SELECT new com.example.ejerciciofinal.dtos.LookupDTO(c.id, c.name) "
+            + "FROM Course c WHERE c.name ILIKE :pattern "
+            + "ORDER BY c.name ASC, c.id ASC")
+    List<LookupDTO> findLookups(@Param("pattern") String pattern, Pageable pageable);
+
+    /**
+     * Tarjetas de los cursos que dicta el profesor, en una sola consulta y sin cargar Seat
+     * Las estadísticas se toman de los contadores del curso
+     */
+    @Query("SELECT new com.example.ejerciciofinal.dtos.CourseCardDTO(c.id, c.name, p.name, c.capacity, "
+            + "c.occupied, c.gradedCount, c.markSum) "
+            + "FROM Course c JOIN c.professor p "
+            + "WHERE p.id = :professorId "
+            + "ORDER BY lower(c.name) ASC")
+    List<CourseCardDTO> findCardsByProfessorId(@Param("professorId") Long professorId);
+
+    /**
+     * Tarjetas de los cursos en los que está inscrito el estudiante, con su nota y año de inscripción
+     */
+    @Query("SELECT new com.example.ejerciciofinal.dtos.CourseCardDTO(c.id, c.name, p.name, c.capacity, "
+            + "c.occupied, c.gradedCount, c.markSum, s.mark, s.year) "
+            + "FROM Seat s JOIN s.course c JOIN c.professor p "
+            + "WHERE s.student.id = :studentId "
+            + "ORDER BY lower(c.name) ASC")
+    List<CourseCardDTO> findCardsByStudentId(@Param("studentId") Long studentId);
+
+    /**
+     * Libera un lugar del curso y descuenta la nota del Seat liberado (si tenía)
+     */
+    @Modifying
+    @Query("UPDATE VERSIONED Course c SET c.occupied = c.occupied - 1, "
+            + "c.gradedCount = c.gradedCount + :gradedDelta, c.markSum = c.markSum + :markDelta "
+            + "WHERE c.id = :courseId")
+    int releaseSeat(@Param("courseId") Long courseId, @Param("gradedDelta") int gradedDelta,
+            @Param("markDelta") double markDelta);
+
+    /**
+     * Lugares libres del curso, bloqueando su fila hasta el fin de la transacción (SELECT ... FOR UPDATE)
+     * Serializa las inscripciones del curso: los lotes de EnrollmentCoalescer, la inscripción masiva y la lista de espera
+     * @return vacío si el curso no existe
+     */
+    @Query(value = "SELECT c.capacity - c.occupied FROM courses c WHERE c.id = :courseId FOR UPDATE",
+            nativeQuery = true)
+    Optional<Integer> lockAvailableSeats(@Param("courseId") Long courseId);
+
+    /**
+     * Aplica a los contadores del curso el resultado de una inscripción masiva:
+     * lugares ocupados/liberados y notas de los Seat eliminados
+     */
+    @Modifying
+    @Query("UPDATE VERSIONED Course c SET c.occupied = c.occupied + :occupiedDelta, "
+            + "c.gradedCount = c.gradedCount + :gradedDelta, c.markSum = c.markSum + :markDelta "
+            + "WHERE c.id = :courseId")
+    int applyEnrollmentDelta(@Param("courseId") Long courseId, @Param("occupiedDelta") int occupiedDelta,
+            @Param("gradedDelta") int gradedDelta, @Param("markDelta") double markDelta);
+
+    /**
+     * Aplica la diferencia de una nota nueva, modificada o borrada a los contadores del curso
+     */
+    @Modifying
+    @Query("UPDATE VERSIONED Course c SET c.gradedCount = c.gradedCount + :gradedDelta, c.markSum = c.markSum + :markDelta "
+            + "WHERE c.id = :courseId")
+    int applyMarkDelta(@Param("courseId") Long courseId, @Param("gradedDelta") int gradedDelta,
+            @Param("markDelta") double markDelta);
+
+    /**
+     * Bloquea (SELECT ... FOR UPDATE) hasta limit cursos con id mayor a lastId, en orden de id
+     * Con las filas bloqueadas ninguna inscripción o calificación de esos cursos puede aplicar su diferencia
+     * a los contadores hasta el fin de la transacción
+     * @return los IDs bloqueados
+     */
+    @Query(value = "SELECT c.id FROM courses c WHERE c.id > :lastId ORDER BY c.id LIMIT :limit FOR UPDATE",
+            nativeQuery = true)
+    List<Long> lockIdsAfter(@Param("lastId") long lastId, @Param("limit") int limit);
+
+    /**
+     * Recalcula los contadores de los cursos indicados desde la tabla seats
+     * Los cursos tienen que estar bloqueados (lockIdsAfter) antes de esta sentencia: así su foto ya incluye
+     * todo cambio confirmado de sus Seat, y los que confirmen después aplican su diferencia sobre el valor corregido
+     * Solo actualiza las filas que difieren
+     * @return cantidad de cursos cuyos contadores estaban desfasados
+     * La hint de native spaces limita la invalidación de la cache de segundo nivel a la tabla courses
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "courses"))
+    @Query(value = "UPDATE courses c SET occupied = agg.occupied, graded_count = agg.graded_count, mark_sum = agg.mark_sum, "
+            + "version = c.version + 1 "
+            + "FROM (SELECT co.id, count(s.id) AS occupied, count(s.mark) AS graded_count, "
+            + "             coalesce(sum(s.mark), 0) AS mark_sum "
+            + "      FROM courses co LEFT JOIN seats s ON s.course_id = co.id "
+            + "      WHERE co.id IN (:courseIds) GROUP BY co.id) agg "
+            + "WHERE agg.id = c.id AND (c.occupied <> agg.occupied OR c.graded_count <> agg.graded_count "
+            + "      OR abs(c.mark_sum - agg.mark_sum) > 0.000001)",
+            nativeQuery = true)
+    int reconcileCounters(@Param("courseIds") Collection<Long> courseIds);
     
 }
@@ -1,34 +1,52 @@
 package com.example.ejerciciofinal.repository;
 
+import com.example.ejerciciofinal.dtos.LookupDTO;
 import com.example.ejerciciofinal.model.Person;
 import com.example.ejerciciofinal.model.Professor;
 
 import java.util.List;
 
-import org.springframework.data.domain.Page;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface PersonRepository extends JpaRepository<Person, Long> {
     
     /**
-     * Obtiene todas las personas paginadas con Address cargado (EAGER)
+     * Obtiene la página siguiente de personas por clave (id > lastId) con Address cargado (EAGER)
+     * A diferencia de la paginación por offset, el costo no crece con la profundidad de la página
      * Evita LazyInitializationException al acceder a address.getCity()
      */
-    @EntityGraph(attributePaths = {"address"})
-    Page<Person> findAll(Pageable pageable);
+    @Query("SELECT p FROM Person p LEFT JOIN FETCH p.address WHERE p.id > :lastId ORDER BY p.id ASC")
+    List<Person> findPageAfter(@Param("lastId") Long lastId, Limit limit);
+
+    /**
+     * Obtiene solo los ids ordenados, se usa para ubicar el id en un offset dado
+     * cuando no se llegó a esa posición recorriendo páginas anteriores
+     */
+    @Query("SELECT p.id FROM Person p ORDER BY p.id ASC")
+    List<Long> findIdsOrderedById(Pageable pageable);
 
     /**
-     * Obtiene todos los profesores
-     * @return Lista de todos los profesores registrados
+     * Profesores (id, nombre) cuyo nombre coincide con el patrón ILIKE, para los selectores
+     * Cada página queda en la cache de consultas hasta que cambie la tabla de personas o profesores
      */
-    @Query("SELECT p FROM Professor p")
-    @EntityGraph(attributePaths = {"address"})
-    List<Professor> findAllProfessors();
+    @Query("SELECT new com.example.ejerciciofinal.dtos.LookupDTO(p.id, p.name) "
+            + "FROM Professor p WHERE p.name ILIKE :pattern "
+            + "ORDER BY p.name ASC, p.id ASC")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "professor-list")
+    })
+    List<LookupDTO> findProfessorLookups(@Param("pattern") String pattern, Pageable pageable);
 
     /**
      * Verifica si existe una persona con el email dado
@@ -13,12 +13,12 @@ public interface ProfessorRepository extends JpaRepository<Professor, Long> {
     Optional<Professor> findByEmail(String email);
     
     /*
-     * Buscar un profesor por ID con carga eager de courses, courses.seats y address
+     * Buscar un profesor por ID con carga eager de courses y address
      * evita lazyinitializationexception al acceder a las colecciones fuera de la transacción
-     * courses.seats es necesario para calcular cupos ocupados/disponibles
+     * los cupos ocupados/disponibles salen de los contadores de Course
      */
     @Override
-    @EntityGraph(attributePaths = {"courses", "courses.seats", "address"})
+    @EntityGraph(attributePaths = {"courses", "address"})
     Optional<Professor> findById(Long id);
     
 }
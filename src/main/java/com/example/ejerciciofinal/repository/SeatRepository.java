@@ -1,12 +1,20 @@
 package com.example.ejerciciofinal.repository;
 
+import com.example.ejerciciofinal.dtos.RosterEntryDTO;
 import com.example.ejerciciofinal.model.Seat;
 import com.example.ejerciciofinal.model.Student;
 import com.example.ejerciciofinal.model.Course;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,5 +30,78 @@ public interface SeatRepository extends JpaRepository<Seat, Long> {
     List<Seat> findByCourseId(Long courseId);
     
     Optional<Seat> findByStudentIdAndCourseIdAndYear(Long studentId, Long courseId, LocalDate year);
+
+    /**
+     * Verifica si el estudiante ya ocupa un cupo en el curso
+     */
+    boolean existsByStudentIdAndCourseId(Long studentId, Long courseId);
+
+    Optional<Seat> findByStudentIdAndCourseId(Long studentId, Long courseId);
+
+    /**
+     * Cuenta los cupos ocupados del curso (cada Seat corresponde a un estudiante inscrito)
+     */
+    long countByCourseId(Long courseId);
+
+    /**
+     * Estudiantes inscritos en todos los cursos del profesor, en una sola consulta
+     * Ordenados por curso y nombre del estudiante
+     */
+    @Query("SELECT new com.example.ejerciciofinal.dtos.RosterEntryDTO(c.id, st.id, st.name, st.studentNumber, "
+            + "s.mark, s.year, s.version) "
+            + "FROM Seat s JOIN s.course c JOIN s.student st "
+            + "WHERE c.professor.id = :professorId "
+            + "ORDER BY c.id ASC, lower(st.name) ASC")
+    List<RosterEntryDTO> findRosterByProfessorId(@Param("professorId") Long professorId);
+
+    /**
+     * Estudiantes inscritos en el curso con la nota y el año de su Seat, en una sola consulta
+     * Ordenados por nombre del estudiante
+     */
+    @Query("SELECT new com.example.ejerciciofinal.dtos.RosterEntryDTO(s.course.id, st.id, st.name, st.studentNumber, "
+            + "s.mark, s.year, s.version) "
+            + "FROM Seat s JOIN s.student st "
+            + "WHERE s.course.id = :courseId "
+            + "ORDER BY lower(st.name) ASC, st.id ASC")
+    List<RosterEntryDTO> findRosterByCourseId(@Param("courseId") Long courseId);
+
+    /**
+     * Inscripciones actuales del curso, solo el ID del estudiante y su nota
+     * Es lo mínimo que necesita la inscripción masiva para calcular la diferencia con la lista recibida
+     */
+    @Query("SELECT s.student.id AS studentId, s.mark AS mark FROM Seat s WHERE s.course.id = :courseId")
+    List<EnrollmentRow> findEnrollmentsByCourseId(@Param("courseId") Long courseId);
+
+    /**
+     * Proyección de una fila de findEnrollmentsByCourseId
+     */
+    interface EnrollmentRow {
+        Long getStudentId();
+
+        Double getMark();
+    }
+
+    /**
+     * IDs de los estudiantes indicados que ya están inscritos en el curso
+     */
+    @Query("SELECT s.student.id FROM Seat s WHERE s.course.id = :courseId AND s.student.id IN :studentIds")
+    List<Long> findEnrolledStudentIds(@Param("courseId") Long courseId, @Param("studentIds") Collection<Long> studentIds);
+
+    /**
+     * Seat del curso de los estudiantes indicados, bloqueados hasta el fin de la transacción
+     * Los usa la carga masiva de notas: la nota anterior leída no puede cambiar antes del UPDATE
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Seat s WHERE s.course.id = :courseId AND s.student.id IN :studentIds")
+    List<Seat> findForGrading(@Param("courseId") Long courseId, @Param("studentIds") Collection<Long> studentIds);
+
+    /**
+     * Elimina en una sola sentencia los Seat del curso de los estudiantes indicados
+     * @return cantidad de Seat eliminados
+     */
+    @Modifying
+    @Query("DELETE FROM Seat s WHERE s.course.id = :courseId AND s.student.id IN :studentIds")
+    int deleteByCourseIdAndStudentIdIn(@Param("courseId") Long courseId,
+            @Param("studentIds") Collection<Long> studentIds);
     
 }
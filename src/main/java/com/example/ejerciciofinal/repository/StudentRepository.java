@@ -3,11 +3,18 @@ package com.example.ejerciciofinal.repository;
 import com.example.ejerciciofinal.dtos.StudentSearchDTO;
 import com.example.ejerciciofinal.model.Student;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -29,6 +36,58 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
             + "ORDER BY s.name ASC")
     List<StudentSearchDTO> findAllStudentsForSearch();
 
+    /**
+     * Búsqueda paginada de estudiantes en la base, por nombre o número de estudiante (ILIKE con el
+     * patrón recibido) o por ID exacto
+     * Los índices trigram sobre name y sobre el número de estudiante como texto los crea la migración V2 (db/migration),
+     * por lo que el filtro no recorre la tabla ni convierte el UUID fila por fila
+     * @param pattern patrón ILIKE ya escapado, por ejemplo "%juan%"
+     * @param id ID a buscar, -1 si el filtro no es numérico
+     */
+    @Query(value = "SELECT p.id AS id, p.name AS name, CAST(s.student_number AS text) AS studentNumber "
+            + "FROM students s JOIN persons p ON p.id = s.id "
+            + "WHERE p.name ILIKE :pattern OR CAST(s.student_number AS text) ILIKE :pattern OR p.id = :id "
+            + "ORDER BY p.name ASC, p.id ASC "
+            + "LIMIT :limit OFFSET :offset",
+            nativeQuery = true)
+    List<SearchRow> searchStudents(@Param("pattern") String pattern, @Param("id") long id,
+            @Param("offset") int offset, @Param("limit") int limit);
+
+    /**
+     * Resuelve en una sola consulta los estudiantes de una lista de IDs y números de estudiante
+     * Los que no existen simplemente no aparecen en el resultado
+     */
+    @Query("SELECT s.id AS id, s.studentNumber AS studentNumber FROM Student s "
+            + "WHERE s.id IN :ids OR s.studentNumber IN :studentNumbers")
+    List<IdentityRow> findIdentities(@Param("ids") Collection<Long> ids,
+            @Param("studentNumbers") Collection<UUID> studentNumbers);
+
+    /**
+     * IDs de los indicados que corresponden a un estudiante existente
+     */
+    @Query("SELECT s.id FROM Student s WHERE s.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Proyección de una fila de findIdentities
+     */
+    interface IdentityRow {
+        Long getId();
+
+        UUID getStudentNumber();
+    }
+
+    /**
+     * Proyección de una fila de searchStudents
+     */
+    interface SearchRow {
+        Long getId();
+
+        String getName();
+
+        String getStudentNumber();
+    }
+
     /*
      * Buscar un estudiante por ID con carga eager de seats, address y courses
      * evita lazyinitializationexception al acceder a las colecciones fuera de la transacción
@@ -36,4 +95,81 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
     @Override
     @EntityGraph(attributePaths = {"seats", "seats.course", "address"})
     Optional<Student> findById(Long id);
+
+    /**
+     * Aplica la diferencia de una nota a la suma, cantidad y promedio del estudiante en una única sentencia
+     * No carga al estudiante ni sus Seat, el promedio se recalcula a partir de los contadores
+     * La hint de native spaces limita la invalidación de la cache de segundo nivel a la tabla students
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "students"))
+    @Query(value = "UPDATE students SET graded_count = graded_count + :gradedDelta, mark_sum = mark_sum + :markDelta, "
+            + "avg_mark = CASE WHEN graded_count + :gradedDelta = 0 THEN 0 "
+            + "                ELSE (mark_sum + :markDelta) / (graded_count + :gradedDelta) END "
+            + "WHERE id = :studentId",
+            nativeQuery = true)
+    int applyMarkDelta(@Param("studentId") Long studentId, @Param("gradedDelta") int gradedDelta,
+            @Param("markDelta") double markDelta);
+
+    /**
+     * Descuenta de la suma, cantidad y promedio de cada estudiante las notas de sus Seat en el curso,
+     * en una única sentencia para todos los estudiantes indicados
+     * Se ejecuta antes de eliminar esos Seat en una inscripción masiva
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "students"))
+    @Query(value = "UPDATE students st SET graded_count = st.graded_count - agg.graded_count, "
+            + "mark_sum = st.mark_sum - agg.mark_sum, "
+            + "avg_mark = CASE WHEN st.graded_count - agg.graded_count = 0 THEN 0 "
+            + "                ELSE (st.mark_sum - agg.mark_sum) / (st.graded_count - agg.graded_count) END "
+            + "FROM (SELECT se.student_id, count(se.mark) AS graded_count, sum(se.mark) AS mark_sum "
+            + "      FROM seats se WHERE se.course_id = :courseId AND se.student_id IN (:studentIds) "
+            + "      AND se.mark IS NOT NULL GROUP BY se.student_id) agg "
+            + "WHERE agg.student_id = st.id",
+            nativeQuery = true)
+    int removeCourseMarks(@Param("courseId") Long courseId, @Param("studentIds") Collection<Long> studentIds);
+
+    /**
+     * Aplica a varios estudiantes la diferencia de sus notas (como applyMarkDelta), en una única sentencia
+     * Los tres arreglos son paralelos: la posición i corresponde al estudiante studentIds[i]
+     * Solo suma diferencias: no pisa las notas que otros cursos cargan al mismo estudiante en paralelo
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "students"))
+    @Query(value = "UPDATE students st SET graded_count = st.graded_count + d.graded_delta, "
+            + "mark_sum = st.mark_sum + d.mark_delta, "
+            + "avg_mark = CASE WHEN st.graded_count + d.graded_delta = 0 THEN 0 "
+            + "                ELSE (st.mark_sum + d.mark_delta) / (st.graded_count + d.graded_delta) END "
+            + "FROM unnest(:studentIds, :gradedDeltas, :markDeltas) AS d(student_id, graded_delta, mark_delta) "
+            + "WHERE st.id = d.student_id",
+            nativeQuery = true)
+    int applyMarkDeltas(@Param("studentIds") Long[] studentIds, @Param("gradedDeltas") Integer[] gradedDeltas,
+            @Param("markDeltas") Double[] markDeltas);
+
+    /**
+     * Bloquea (SELECT ... FOR UPDATE) hasta limit estudiantes con id mayor a lastId, en orden de id
+     * @return los IDs bloqueados
+     */
+    @Query(value = "SELECT s.id FROM students s WHERE s.id > :lastId ORDER BY s.id LIMIT :limit FOR UPDATE",
+            nativeQuery = true)
+    List<Long> lockIdsAfter(@Param("lastId") long lastId, @Param("limit") int limit);
+
+    /**
+     * Recalcula suma, cantidad y promedio de notas de los estudiantes indicados desde la tabla seats
+     * Los estudiantes tienen que estar bloqueados (lockIdsAfter) antes de esta sentencia, igual que en
+     * CourseRepository.reconcileCounters
+     * Solo actualiza las filas que difieren
+     * @return cantidad de estudiantes cuyos contadores estaban desfasados
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "students"))
+    @Query(value = "UPDATE students st SET graded_count = agg.graded_count, mark_sum = agg.mark_sum, avg_mark = agg.avg_mark "
+            + "FROM (SELECT s.id, count(se.mark) AS graded_count, coalesce(sum(se.mark), 0) AS mark_sum, "
+            + "             coalesce(avg(se.mark), 0) AS avg_mark "
+            + "      FROM students s LEFT JOIN seats se ON se.student_id = s.id "
+            + "      WHERE s.id IN (:studentIds) GROUP BY s.id) agg "
+            + "WHERE agg.id = st.id AND (st.graded_count <> agg.graded_count "
+            + "      OR abs(st.mark_sum - agg.mark_sum) > 0.000001 OR abs(st.avg_mark - agg.avg_mark) > 0.000001)",
+            nativeQuery = true)
+    int reconcileMarkCounters(@Param("studentIds") Collection<Long> studentIds);
 }
@@ -0,0 +1,61 @@
+package com.example.ejerciciofinal.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.ejerciciofinal.model.WaitlistEntry;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    /**
+     * IDs de los estudiantes indicados que ya están en la lista de espera del curso
+     */
+    @Query("SELECT w.student.id FROM WaitlistEntry w WHERE w.course.id = :courseId AND w.student.id IN :studentIds")
+    List<Long> findWaitingStudentIds(@Param("courseId") Long courseId, @Param("studentIds") Collection<Long> studentIds);
+
+    /**
+     * Si hay alguien esperando en el curso: en ese caso las inscripciones nuevas van al final de la lista
+     */
+    boolean existsByCourseId(Long courseId);
+
+    /**
+     * Posición en la lista de espera del curso de la entrada indicada (comienza en 1)
+     */
+    @Query("SELECT count(w) FROM WaitlistEntry w WHERE w.course.id = :courseId AND w.id <= :entryId")
+    long findPosition(@Param("courseId") Long courseId, @Param("entryId") Long entryId);
+
+    /**
+     * Primeras entradas de la lista de espera del curso, en orden de llegada
+     * Usa el índice ix_waitlist_course_id (course_id, id)
+     */
+    @Query("SELECT w.id AS id, w.student.id AS studentId FROM WaitlistEntry w "
+            + "WHERE w.course.id = :courseId ORDER BY w.id ASC")
+    List<NextRow> findNext(@Param("courseId") Long courseId, Limit limit);
+
+    /**
+     * Proyección de una fila de findNext
+     */
+    interface NextRow {
+        Long getId();
+
+        Long getStudentId();
+    }
+
+    /**
+     * Cursos con al menos un estudiante esperando
+     */
+    @Query("SELECT DISTINCT w.course.id FROM WaitlistEntry w")
+    List<Long> findCourseIdsWithEntries();
+
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
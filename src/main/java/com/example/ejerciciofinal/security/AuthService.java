@@ -15,9 +15,7 @@ import java.util.Optional;
 @Service
 public class AuthService {
 
-    private static final String SESSION_USER_ID_KEY = "authenticated_user_id";
-    private static final String SESSION_USERNAME_KEY = "authenticated_username";
-    private static final String SESSION_ROLE_KEY = "user_role";
+    private static final String SESSION_PRINCIPAL_KEY = "authenticated_principal";
 
     private final UserRepository userRepository;
 
@@ -47,9 +45,10 @@ public class AuthService {
             VaadinSession session = VaadinSession.getCurrent();
             
             if (session != null) {
-                session.setAttribute(SESSION_USER_ID_KEY, user.getId());
-                session.setAttribute(SESSION_USERNAME_KEY, user.getUserName());
-                session.setAttribute(SESSION_ROLE_KEY, user.getRole());
+                // getId() del proxy lazy de Person se lee de la FK, no dispara otra consulta
+                Long personId = user.getPerson() != null ? user.getPerson().getId() : null;
+                session.setAttribute(SESSION_PRINCIPAL_KEY,
+                        new SessionPrincipal(user.getId(), user.getUserName(), user.getRole(), personId));
                 return true;
             }
         }
@@ -57,44 +56,58 @@ public class AuthService {
         return false;
     }
 
+    /**
+     * Obtiene los datos del usuario autenticado, null si no hay sesión iniciada
+     */
+    public static SessionPrincipal getCurrentPrincipal() {
+        VaadinSession session = VaadinSession.getCurrent();
+        return session != null ? (SessionPrincipal) session.getAttribute(SESSION_PRINCIPAL_KEY) : null;
+    }
+
     /**
      * Verifica si hay un usuario autenticado
      */
     public static boolean isAuthenticated() {
-        VaadinSession session = VaadinSession.getCurrent();
-        return session != null && session.getAttribute(SESSION_USER_ID_KEY) != null;
+        return getCurrentPrincipal() != null;
     }
 
     /**
      * Obtiene el ID del usuario actual
      */
     public static Long getCurrentUserId() {
-        VaadinSession session = VaadinSession.getCurrent();
-        return session != null ? (Long) session.getAttribute(SESSION_USER_ID_KEY) : null;
+        SessionPrincipal principal = getCurrentPrincipal();
+        return principal != null ? principal.userId() : null;
+    }
+
+    /**
+     * Obtiene el ID de la persona (Student o Professor) del usuario actual, null para ADMIN
+     */
+    public static Long getCurrentPersonId() {
+        SessionPrincipal principal = getCurrentPrincipal();
+        return principal != null ? principal.personId() : null;
     }
 
     /**
      * Obtiene el username del usuario actual
      */
     public static String getCurrentUsername() {
-        VaadinSession session = VaadinSession.getCurrent();
-        return session != null ? (String) session.getAttribute(SESSION_USERNAME_KEY) : null;
+        SessionPrincipal principal = getCurrentPrincipal();
+        return principal != null ? principal.username() : null;
     }
 
     /**
      * Obtiene el rol del usuario actual
      */
     public static Role getCurrentRole() {
-        VaadinSession session = VaadinSession.getCurrent();
-        return session != null ? (Role) session.getAttribute(SESSION_ROLE_KEY) : null;
+        SessionPrincipal principal = getCurrentPrincipal();
+        return principal != null ? principal.role() : null;
     }
 
     /*
      * Obtiene el id del usuario actual
      */
     public static Long getCurrentUserIdStatic() {
-        VaadinSession session = VaadinSession.getCurrent();
-        return session != null? (Long) session.getAttribute(SESSION_USER_ID_KEY) : null;
+        return getCurrentUserId();
     }
 
     /**
@@ -103,9 +116,7 @@ public class AuthService {
     public static void logout() {
         VaadinSession session = VaadinSession.getCurrent();
         if (session != null) {
-            session.setAttribute(SESSION_USER_ID_KEY, null);
-            session.setAttribute(SESSION_USERNAME_KEY, null);
-            session.setAttribute(SESSION_ROLE_KEY, null);
+            session.setAttribute(SESSION_PRINCIPAL_KEY, null);
             session.close();
         }
     }
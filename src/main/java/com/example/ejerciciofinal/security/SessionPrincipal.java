@@ -0,0 +1,15 @@
+package com.example.ejerciciofinal.security;
+
+import java.io.Serializable;
+
+import com.example.ejerciciofinal.model.Role;
+
+/**
+ * Datos del usuario autenticado que se guardan en la VaadinSession al hacer login
+ * Inmutable: incluye el ID de la persona (Student o Professor según el rol) para que las vistas
+ * no tengan que volver a resolver User -> Person en cada navegación
+ *
+ * @param personId null para usuarios ADMIN, que no tienen persona asociada
+ */
+public record SessionPrincipal(Long userId, String username, Role role, Long personId) implements Serializable {
+}
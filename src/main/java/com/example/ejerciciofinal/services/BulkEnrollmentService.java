@@ -0,0 +1,198 @@
+package com.example.ejerciciofinal.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ejerciciofinal.dtos.BulkEnrollmentResultDTO;
+import com.example.ejerciciofinal.dtos.BulkEnrollmentResultDTO.Status;
+import com.example.ejerciciofinal.model.Course;
+import com.example.ejerciciofinal.model.Seat;
+import com.example.ejerciciofinal.repository.CourseRepository;
+import com.example.ejerciciofinal.repository.SeatRepository;
+import com.example.ejerciciofinal.repository.StudentRepository;
+
+/**
+ * Inscripción masiva de estudiantes a un curso a partir de una lista de IDs o números de estudiante
+ * Calcula la diferencia contra los inscritos actuales y solo aplica las altas (y, en modo sincronización,
+ * las bajas), con una cantidad fija de consultas sin importar el tamaño de la lista:
+ * bloqueo del curso, resolución de los estudiantes, inscritos actuales, bajas, altas en batch y contadores
+ * Respeta la lista de espera del curso: los que no entran, o todos si ya hay estudiantes esperando, se anotan al final
+ * Como las demás operaciones del curso, espera su turno en CourseLockManager antes de abrir la transacción
+ */
+@Service
+public class BulkEnrollmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkEnrollmentService.class);
+
+    // Máximo de parámetros por cláusula IN (PostgreSQL admite hasta 32767 por sentencia)
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private CourseLockManager courseLockManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /*
+     * Inscribe en el curso a los estudiantes de la lista, en una sola transacción
+     * Los cupos se asignan en el orden de la lista, los que no entran quedan en la lista de espera (WAITLISTED)
+     * @param courseId ID del curso
+     * @param identifiers IDs o números de estudiante (UUID), uno por elemento
+     * @param removeMissing true para sincronizar: se dan de baja (con su nota) los inscritos que no están en la lista
+     * @return el estado de cada estudiante recibido y de cada baja
+     */
+    public BulkEnrollmentResultDTO enroll(Long courseId, Collection<String> identifiers, boolean removeMissing) {
+        if (identifiers == null) {
+            throw new IllegalArgumentException("La lista de estudiantes no puede ser nula");
+        }
+        List<String> values = identifiers.stream()
+                .filter(value -> value != null && !value.isBlank())
+                .map(String::trim)
+                .toList();
+        if (values.isEmpty()) {
+            // En modo sincronización una lista vacía daría de baja a todo el curso
+            throw new IllegalArgumentException("La lista de estudiantes está vacía");
+        }
+
+        return courseLockManager.withCourseLock(courseId,
+                () -> transactionTemplate.execute(status -> apply(courseId, values, removeMissing)));
+    }
+
+    private BulkEnrollmentResultDTO apply(Long courseId, List<String> values, boolean removeMissing) {
+        // Bloquea la fila del curso: mientras dure la transacción nadie más ocupa ni libera lugares
+        int available = courseRepository.lockAvailableSeats(courseId)
+                .orElseThrow(() -> new IllegalArgumentException("No se encontró el curso con ID: " + courseId));
+
+        Map<String, Long> resolved = StudentIdentifiers.resolve(studentRepository, values);
+
+        List<SeatRepository.EnrollmentRow> enrollments = seatRepository.findEnrollmentsByCourseId(courseId);
+        Set<Long> enrolled = new HashSet<>();
+        enrollments.forEach(row -> enrolled.add(row.getStudentId()));
+
+        BulkEnrollmentResultDTO result = new BulkEnrollmentResultDTO(courseId);
+        Set<Long> requested = new HashSet<>();
+        List<String> toAddIdentifiers = new ArrayList<>();
+        List<Long> toAdd = new ArrayList<>();
+
+        for (String value : values) {
+            Long studentId = resolved.get(value);
+            if (studentId == null) {
+                result.add(value, null, Status.UNKNOWN);
+            } else if (!requested.add(studentId)) {
+                result.add(value, studentId, Status.DUPLICATE);
+            } else if (enrolled.contains(studentId)) {
+                result.add(value, studentId, Status.ALREADY_ENROLLED);
+            } else {
+                toAddIdentifiers.add(value);
+                toAdd.add(studentId);
+            }
+        }
+
+        // Bajas: primero, así los lugares que liberan quedan disponibles para las altas
+        List<Long> toRemove = new ArrayList<>();
+        int removedSeats = 0;
+        int removedGraded = 0;
+        double removedMarkSum = 0.0;
+        if (removeMissing) {
+            for (SeatRepository.EnrollmentRow row : enrollments) {
+                if (!requested.contains(row.getStudentId()) && row.getMark() != null) {
+                    removedGraded++;
+                    removedMarkSum += row.getMark();
+                }
+            }
+            enrolled.stream().filter(studentId -> !requested.contains(studentId)).forEach(toRemove::add);
+            toRemove.sort(null);
+            for (List<Long> chunk : partition(toRemove)) {
+                // Las notas se descuentan de los estudiantes antes de eliminar los Seat de donde se leen
+                studentRepository.removeCourseMarks(courseId, chunk);
+                removedSeats += seatRepository.deleteByCourseIdAndStudentIdIn(courseId, chunk);
+            }
+            toRemove.forEach(studentId -> result.add(String.valueOf(studentId), studentId, Status.REMOVED));
+            available += removedSeats;
+        }
+
+        // Altas: los Seat se insertan en batch (hibernate.jdbc.batch_size), con referencias sin cargar entidades
+        // Si ya hay estudiantes esperando, los lugares libres (incluidos los de las bajas) son para ellos
+        // y toda la lista va a la lista de espera, como en la inscripción individual
+        boolean waiting = waitlistService.hasWaiting(courseId);
+        Course course = courseRepository.getReferenceById(courseId);
+        LocalDate today = LocalDate.now();
+        List<Seat> seats = new ArrayList<>();
+        List<Long> toWaitlist = new ArrayList<>();
+        Map<Long, String> waitlistIdentifiers = new HashMap<>();
+        for (int i = 0; i < toAdd.size(); i++) {
+            Long studentId = toAdd.get(i);
+            if (!waiting && seats.size() < available) {
+                seats.add(new Seat(today, null, studentRepository.getReferenceById(studentId), course));
+                result.add(toAddIdentifiers.get(i), studentId, Status.ADDED);
+            } else {
+                toWaitlist.add(studentId);
+                waitlistIdentifiers.put(studentId, toAddIdentifiers.get(i));
+            }
+        }
+        try {
+            seatRepository.saveAll(seats);
+            seatRepository.flush();
+        } catch (DataIntegrityViolationException ex) {
+            // Solo ocurre si una inscripción individual se confirmó sin pasar por el bloqueo del curso
+            throw new IllegalArgumentException("Otro proceso modificó las inscripciones del curso con ID: " + courseId
+                    + ", vuelva a intentarlo");
+        }
+
+        if (!seats.isEmpty() || removedSeats > 0) {
+            courseRepository.applyEnrollmentDelta(courseId, seats.size() - removedSeats,
+                    -removedGraded, -removedMarkSum);
+        }
+        // Los que no entran quedan al final de la lista de espera, en el orden de la lista (el curso ya está bloqueado)
+        Map<Long, Long> positions = waitlistService.enqueueAll(courseId, toWaitlist);
+        for (Long studentId : toWaitlist) {
+            Long position = positions.get(studentId);
+            if (position != null) {
+                result.addWaitlisted(waitlistIdentifiers.get(studentId), studentId, position);
+            } else {
+                result.add(waitlistIdentifiers.get(studentId), studentId, Status.ALREADY_WAITING);
+            }
+        }
+        if (!toRemove.isEmpty()) {
+            // Los lugares que no se usaron para altas son para la lista de espera
+            waitlistService.signalAfterCommit(courseId);
+        }
+
+        log.info("Inscripción masiva en el curso {}: {} altas, {} bajas, {} en lista de espera, {} desconocidos",
+                courseId, seats.size(), toRemove.size(), result.count(Status.WAITLISTED), result.count(Status.UNKNOWN));
+        return result;
+    }
+
+    private static <T> List<List<T>> partition(List<T> list) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += IN_CHUNK_SIZE) {
+            chunks.add(list.subList(from, Math.min(from + IN_CHUNK_SIZE, list.size())));
+        }
+        return chunks;
+    }
+}
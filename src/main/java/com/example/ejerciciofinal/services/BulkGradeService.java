@@ -0,0 +1,214 @@
+package com.example.ejerciciofinal.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ejerciciofinal.dtos.BulkGradeResultDTO;
+import com.example.ejerciciofinal.model.Seat;
+import com.example.ejerciciofinal.repository.CourseRepository;
+import com.example.ejerciciofinal.repository.SeatRepository;
+import com.example.ejerciciofinal.repository.StudentRepository;
+
+/**
+ * Carga masiva de notas de un curso, desde la grilla editable de ProfessorCoursesView o desde un CSV
+ * Todas las notas se aplican en una transacción con una cantidad fija de sentencias:
+ * bloqueo del curso, los Seat afectados (bloqueados), sus UPDATE en batch, un UPDATE de los contadores del curso
+ * y un único UPDATE con la diferencia de notas de cada estudiante afectado
+ * El curso se bloquea antes que los Seat, en el mismo orden que la inscripción masiva y la lista de espera
+ * Como las demás operaciones del curso, espera su turno en CourseLockManager antes de abrir la transacción;
+ * el CSV se lee y se resuelve antes, sin tener el bloqueo
+ */
+@Service
+public class BulkGradeService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkGradeService.class);
+
+    private static final double MIN_MARK = 0.0;
+    private static final double MAX_MARK = 10.0;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CourseLockManager courseLockManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /*
+     * Aplica las notas indicadas en el curso
+     * @param courseId ID del curso
+     * @param marks nota por ID de estudiante, null borra la nota
+     * @param expectedVersions versión del Seat que vio el usuario por ID de estudiante (RosterEntryDTO.getSeatVersion()),
+     * null o sin el estudiante para no verificarla
+     * @return cantidad de notas cambiadas, sin cambios y rechazadas (fuera de rango, estudiante no inscrito
+     * o nota modificada por otro usuario desde que se leyó)
+     */
+    public BulkGradeResultDTO postGrades(Long courseId, Map<Long, Double> marks, Map<Long, Long> expectedVersions) {
+        if (marks == null) {
+            throw new IllegalArgumentException("Las notas no pueden ser nulas");
+        }
+
+        BulkGradeResultDTO result = new BulkGradeResultDTO(courseId);
+        Map<Long, String> identifiers = new HashMap<>();
+        marks.keySet().forEach(studentId -> identifiers.put(studentId, String.valueOf(studentId)));
+        applyLocked(courseId, marks, expectedVersions != null ? expectedVersions : Map.of(), identifiers, result);
+        return result;
+    }
+
+    /*
+     * Aplica las notas de un archivo CSV/TSV con dos columnas: estudiante (ID o número de estudiante) y nota
+     * Si la primera línea no tiene una nota numérica se toma como encabezado
+     * Acepta coma decimal cuando el separador es punto y coma o tabulación
+     * @param input contenido del archivo en UTF-8, no se cierra
+     */
+    public BulkGradeResultDTO postGradesFromCsv(Long courseId, InputStream input) throws IOException {
+        BulkGradeResultDTO result = new BulkGradeResultDTO(courseId);
+        // Valor del estudiante tal como viene en el archivo -> nota, en el orden del archivo
+        Map<String, Double> parsed = new LinkedHashMap<>();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        boolean firstLine = true;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] fields = line.split(line.indexOf('\t') >= 0 ? "\t" : line.indexOf(';') >= 0 ? ";" : ",", -1);
+            String student = fields[0].replace("\"", "").replace("\uFEFF", "").trim();
+            String markText = fields.length > 1 ? fields[1].replace("\"", "").trim().replace(',', '.') : "";
+            try {
+                Double mark = Double.valueOf(markText);
+                if (parsed.putIfAbsent(student, mark) != null) {
+                    result.reject("Línea " + lineNumber + ": " + student, "Estudiante repetido en el archivo");
+                }
+            } catch (NumberFormatException ex) {
+                // Una primera línea sin nota numérica es el encabezado
+                if (!firstLine) {
+                    result.reject("Línea " + lineNumber + ": " + student, "Nota inválida: " + markText);
+                }
+            }
+            firstLine = false;
+        }
+
+        Map<String, Long> resolved = StudentIdentifiers.resolve(studentRepository, new ArrayList<>(parsed.keySet()));
+        Map<Long, Double> marks = new LinkedHashMap<>();
+        Map<Long, String> identifiers = new HashMap<>();
+        parsed.forEach((student, mark) -> {
+            Long studentId = resolved.get(student);
+            if (studentId == null) {
+                result.reject(student, "No existe el estudiante");
+            } else if (marks.containsKey(studentId)) {
+                result.reject(student, "Estudiante repetido en el archivo");
+            } else {
+                marks.put(studentId, mark);
+                identifiers.put(studentId, student);
+            }
+        });
+
+        // El archivo no trae versiones: las notas se aplican sobre el valor actual
+        applyLocked(courseId, marks, Map.of(), identifiers, result);
+        return result;
+    }
+
+    private void applyLocked(Long courseId, Map<Long, Double> marks, Map<Long, Long> expectedVersions,
+            Map<Long, String> identifiers, BulkGradeResultDTO result) {
+        courseLockManager.withCourseLock(courseId, () -> transactionTemplate.execute(status -> {
+            apply(courseId, marks, expectedVersions, identifiers, result);
+            return null;
+        }));
+    }
+
+    private void apply(Long courseId, Map<Long, Double> marks, Map<Long, Long> expectedVersions,
+            Map<Long, String> identifiers, BulkGradeResultDTO result) {
+        courseRepository.lockAvailableSeats(courseId)
+                .orElseThrow(() -> new IllegalArgumentException("No se encontró el curso con ID: " + courseId));
+
+        Map<Long, Double> valid = new HashMap<>();
+        marks.forEach((studentId, mark) -> {
+            if (mark != null && !(mark >= MIN_MARK && mark <= MAX_MARK)) {
+                result.reject(identifiers.get(studentId), "La nota debe estar entre 0 y 10");
+            } else {
+                valid.put(studentId, mark);
+            }
+        });
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        int gradedDelta = 0;
+        double markDelta = 0.0;
+        // Diferencia de cada estudiante afectado, en arreglos paralelos para StudentRepository.applyMarkDeltas
+        List<Long> affectedStudents = new ArrayList<>();
+        List<Integer> studentGradedDeltas = new ArrayList<>();
+        List<Double> studentMarkDeltas = new ArrayList<>();
+        Set<Long> enrolled = new HashSet<>();
+
+        // Las modificaciones de los Seat se envían en batch al hacer flush (hibernate.jdbc.batch_size)
+        for (Seat seat : seatRepository.findForGrading(courseId, valid.keySet())) {
+            Long studentId = seat.getStudent().getId();
+            enrolled.add(studentId);
+            Double previousMark = seat.getMark();
+            Long expectedVersion = expectedVersions.get(studentId);
+            if (expectedVersion != null && !expectedVersion.equals(seat.getVersion())) {
+                // Mismo criterio que CourseService.setMarkToStudentInCourse, pero solo se rechaza esta fila
+                result.reject(identifiers.get(studentId), "Otro usuario modificó la nota"
+                        + (previousMark != null ? String.format(" (nota actual: %.2f)", previousMark) : " (ahora sin nota)"));
+                continue;
+            }
+            Double newMark = valid.get(studentId);
+            if (Objects.equals(previousMark, newMark)) {
+                result.setUnchanged(result.getUnchanged() + 1);
+                continue;
+            }
+            seat.setMark(newMark);
+            int seatGradedDelta = (newMark != null ? 1 : 0) - (previousMark != null ? 1 : 0);
+            double seatMarkDelta = (newMark != null ? newMark : 0.0) - (previousMark != null ? previousMark : 0.0);
+            gradedDelta += seatGradedDelta;
+            markDelta += seatMarkDelta;
+            affectedStudents.add(studentId);
+            studentGradedDeltas.add(seatGradedDelta);
+            studentMarkDeltas.add(seatMarkDelta);
+            result.setUpdated(result.getUpdated() + 1);
+        }
+        valid.keySet().stream()
+                .filter(studentId -> !enrolled.contains(studentId))
+                .forEach(studentId -> result.reject(identifiers.get(studentId), "El estudiante no está inscrito en el curso"));
+
+        if (affectedStudents.isEmpty()) {
+            return;
+        }
+        seatRepository.flush();
+        courseRepository.applyMarkDelta(courseId, gradedDelta, markDelta);
+        studentRepository.applyMarkDeltas(affectedStudents.toArray(Long[]::new),
+                studentGradedDeltas.toArray(Integer[]::new), studentMarkDeltas.toArray(Double[]::new));
+
+        log.info("Carga masiva de notas en el curso {}: {} actualizadas, {} sin cambios, {} rechazadas",
+                courseId, result.getUpdated(), result.getUnchanged(), result.getRejected().size());
+    }
+}
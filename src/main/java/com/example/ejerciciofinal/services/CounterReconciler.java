@@ -0,0 +1,97 @@
+package com.example.ejerciciofinal.services;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ejerciciofinal.repository.CourseRepository;
+import com.example.ejerciciofinal.repository.StudentRepository;
+
+/**
+ * Verifica que los contadores desnormalizados coincidan con la tabla seats y corrige los que difieran:
+ * ocupación y notas de Course (occupied, gradedCount, markSum) y notas de Student (gradedCount, markSum, avgMark)
+ * Se ejecuta al arrancar (inicializa los contadores de datos existentes) y luego periódicamente
+ *
+ * Recorre cada tabla en bloques de CHUNK_SIZE filas, cada bloque en su propia transacción: primero bloquea
+ * las filas del bloque y recién después calcula los totales, así una inscripción o calificación confirmada
+ * mientras tanto no se pisa con totales viejos (ver CourseRepository.reconcileCounters)
+ */
+@Component
+@Order(1)
+public class CounterReconciler implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CounterReconciler.class);
+
+    // Filas bloqueadas a la vez: acota la espera de las operaciones sobre esas filas
+    private static final int CHUNK_SIZE = 500;
+
+    private final CourseRepository courseRepository;
+    private final StudentRepository studentRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public CounterReconciler(CourseRepository courseRepository, StudentRepository studentRepository,
+            TransactionTemplate transactionTemplate) {
+        this.courseRepository = courseRepository;
+        this.studentRepository = studentRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void run(String... args) {
+        reconcile();
+    }
+
+    /**
+     * Recalcula los contadores de todos los cursos y estudiantes
+     * @return cantidad de filas que tenían contadores desfasados
+     */
+    @Scheduled(cron = "${app.counters.reconcile-cron:0 0 4 * * *}")
+    public int reconcile() {
+        int courses = reconcileTable("courses", lastId -> {
+            List<Long> ids = courseRepository.lockIdsAfter(lastId, CHUNK_SIZE);
+            return new Chunk(ids, ids.isEmpty() ? 0 : courseRepository.reconcileCounters(ids));
+        });
+        int students = reconcileTable("students", lastId -> {
+            List<Long> ids = studentRepository.lockIdsAfter(lastId, CHUNK_SIZE);
+            return new Chunk(ids, ids.isEmpty() ? 0 : studentRepository.reconcileMarkCounters(ids));
+        });
+        if (courses > 0 || students > 0) {
+            log.warn("Contadores corregidos en {} cursos y {} estudiantes", courses, students);
+        }
+        return courses + students;
+    }
+
+    private int reconcileTable(String table, Function<Long, Chunk> reconcileChunk) {
+        int corrected = 0;
+        long lastId = 0;
+        while (true) {
+            long from = lastId;
+            Chunk chunk;
+            try {
+                chunk = transactionTemplate.execute(status -> reconcileChunk.apply(from));
+            } catch (DataAccessException ex) {
+                // Por ejemplo un deadlock con una operación masiva: el bloque se vuelve a revisar en la próxima ejecución
+                log.warn("No se pudieron conciliar los contadores de {} después del id {}: {}", table, from, ex.getMessage());
+                return corrected;
+            }
+            if (chunk == null || chunk.ids().isEmpty()) {
+                return corrected;
+            }
+            corrected += chunk.corrected();
+            lastId = chunk.ids().get(chunk.ids().size() - 1);
+        }
+    }
+
+    // ===== CLASES INTERNAS =====
+
+    private record Chunk(List<Long> ids, int corrected) {
+    }
+}
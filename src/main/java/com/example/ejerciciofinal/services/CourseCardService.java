@@ -0,0 +1,70 @@
+package com.example.ejerciciofinal.services;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.ejerciciofinal.dtos.CourseCardDTO;
+import com.example.ejerciciofinal.dtos.RosterEntryDTO;
+import com.example.ejerciciofinal.repository.CourseRepository;
+import com.example.ejerciciofinal.repository.SeatRepository;
+
+/**
+ * Servicio de solo lectura para las tarjetas de "Mis Cursos"
+ * Devuelve todas las tarjetas del usuario de una vez, en lugar de cargar cada curso con sus Seat
+ */
+@Service
+public class CourseCardService {
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    /*
+     * Tarjetas de los cursos del profesor, con los estudiantes inscritos
+     * Consultas: cursos del profesor + estudiantes de todos esos cursos, sin importar cuántos cursos tenga
+     * @param professorId ID del profesor (el personId del usuario logueado)
+     * @return tarjetas ordenadas por nombre del curso
+     */
+    @Transactional(readOnly = true)
+    public List<CourseCardDTO> getProfessorCards(Long professorId) {
+        if (professorId == null) {
+            throw new IllegalArgumentException("El usuario no tiene una persona asociada");
+        }
+
+        List<CourseCardDTO> cards = courseRepository.findCardsByProfessorId(professorId);
+        if (cards.isEmpty()) {
+            return cards;
+        }
+
+        Map<Long, CourseCardDTO> cardsById = cards.stream()
+                .collect(Collectors.toMap(CourseCardDTO::getId, Function.identity()));
+        for (RosterEntryDTO entry : seatRepository.findRosterByProfessorId(professorId)) {
+            CourseCardDTO card = cardsById.get(entry.getCourseId());
+            if (card != null) {
+                card.getRoster().add(entry);
+            }
+        }
+        return cards;
+    }
+
+    /*
+     * Tarjetas de los cursos en los que está inscrito el estudiante
+     * @param studentId ID del estudiante (el personId del usuario logueado)
+     * @return tarjetas ordenadas por nombre del curso, con la nota y el año de inscripción del estudiante
+     */
+    @Transactional(readOnly = true)
+    public List<CourseCardDTO> getStudentCards(Long studentId) {
+        if (studentId == null) {
+            throw new IllegalArgumentException("El usuario no tiene una persona asociada");
+        }
+        return courseRepository.findCardsByStudentId(studentId);
+    }
+}
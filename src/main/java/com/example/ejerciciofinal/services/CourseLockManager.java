@@ -0,0 +1,109 @@
+package com.example.ejerciciofinal.services;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Bloqueos en memoria por curso, repartidos en una cantidad fija de franjas (lock striping)
+ *
+ * Las operaciones que modifican un curso toman el bloqueo de su franja antes de abrir la transacción:
+ * las del mismo curso se serializan en la JVM, sin ocupar una conexión del pool mientras esperan,
+ * y las de cursos en otras franjas corren en paralelo. Dos cursos pueden compartir franja; con más
+ * franjas es menos probable, a cambio de unos bytes por franja
+ * Cada operación toma una sola franja y, dentro de la transacción, bloquea primero la fila del curso
+ * (CourseRepository.lockAvailableSeats) y después sus Seat, así dos operaciones no pueden esperarse mutuamente
+ *
+ * Es solo una optimización dentro de un nodo: la consistencia la siguen dando el bloqueo de la fila
+ * del curso y las versiones (@Version) en la base
+ *
+ * Métricas: course.lock.wait, course.lock.timeouts y course.lock.queued
+ */
+@Component
+public class CourseLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final Duration waitTimeout;
+
+    private final Timer waitTimer;
+    private final Counter timeoutCounter;
+
+    public CourseLockManager(MeterRegistry meterRegistry,
+            @Value("${app.course-locks.stripes:64}") int stripes,
+            @Value("${app.course-locks.wait-timeout:PT5S}") Duration waitTimeout) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("app.course-locks.stripes debe ser mayor que 0");
+        }
+        // Potencia de dos para calcular la franja con una máscara
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.waitTimeout = waitTimeout;
+
+        waitTimer = Timer.builder("course.lock.wait")
+                .description("Espera para tomar el bloqueo de un curso")
+                .register(meterRegistry);
+        timeoutCounter = Counter.builder("course.lock.timeouts")
+                .description("Operaciones rechazadas por esperar más de wait-timeout el bloqueo de un curso")
+                .register(meterRegistry);
+        Gauge.builder("course.lock.queued", this, CourseLockManager::queued)
+                .description("Hilos esperando el bloqueo de algún curso")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta la operación con el bloqueo del curso tomado
+     * @throws IllegalArgumentException si el bloqueo no se obtiene dentro de wait-timeout
+     */
+    public <T> T withCourseLock(Long courseId, Supplier<T> operation) {
+        ReentrantLock lock = stripes[stripe(courseId)];
+        long start = System.nanoTime();
+        try {
+            if (!lock.tryLock(waitTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                timeoutCounter.increment();
+                throw new IllegalArgumentException("El curso está siendo modificado por otras operaciones, vuelva a intentarlo");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("La operación fue interrumpida, vuelva a intentarlo");
+        }
+        try {
+            waitTimer.record(Duration.ofNanos(System.nanoTime() - start));
+            return operation.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int stripe(Long courseId) {
+        if (courseId == null) {
+            throw new IllegalArgumentException("El curso no puede ser nulo");
+        }
+        // Mezcla los bits altos del ID con los bajos antes de aplicar la máscara
+        int hash = courseId.hashCode();
+        hash ^= (hash >>> 16);
+        return hash & (stripes.length - 1);
+    }
+
+    private double queued() {
+        int queued = 0;
+        for (ReentrantLock lock : stripes) {
+            queued += lock.getQueueLength();
+        }
+        return queued;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.ejerciciofinal.services;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.ejerciciofinal.dtos.LookupDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache de las páginas (id, nombre) de cursos que piden los ComboBox de AssignMarkView,
+ * AssignStudentToCourseView y demás selectores de cursos
+ *
+ * Cada página se guarda como una lista inmodificable junto con la versión del catálogo con la que se leyó.
+ * La versión solo cambia cuando se crea un curso (al confirmar la transacción):
+ * inscripciones, bajas y notas no tocan (id, nombre), así que abrir las vistas no consulta la base mientras
+ * el catálogo no cambie. Pasado el ttl la página se vuelve a leer, lo que también refleja altas de otros nodos
+ *
+ * Métrica: course.lookup.cache{result=hit|miss}
+ */
+@Component
+public class CourseLookupCache {
+
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Counter hits;
+    private final Counter misses;
+
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Key, Snapshot> pages = new ConcurrentHashMap<>();
+
+    public CourseLookupCache(MeterRegistry meterRegistry,
+            @Value("${app.course-lookup-cache.ttl:PT10M}") Duration ttl,
+            @Value("${app.course-lookup-cache.max-entries:2000}") int maxEntries) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.hits = counter(meterRegistry, "hit");
+        this.misses = counter(meterRegistry, "miss");
+    }
+
+    /**
+     * Obtiene la página desde la cache si se leyó con la versión actual del catálogo y no expiró,
+     * si no la lee con loader y la guarda
+     * @param pattern patrón de búsqueda ya normalizado (ver SearchPatterns)
+     */
+    public List<LookupDTO> get(String pattern, int page, int pageSize, Supplier<List<LookupDTO>> loader) {
+        Key key = new Key(pattern, page, pageSize);
+        long current = version.get();
+        Snapshot cached = pages.get(key);
+        if (cached != null && cached.version() == current && !cached.isExpired(ttl)) {
+            hits.increment();
+            return cached.items();
+        }
+
+        misses.increment();
+        List<LookupDTO> items = List.copyOf(loader.get());
+        if (pages.size() >= maxEntries) {
+            pages.clear();
+        }
+        // Se guarda con la versión leída antes de consultar: si el catálogo cambió mientras tanto,
+        // la página queda desactualizada y el próximo get la vuelve a leer
+        pages.put(key, new Snapshot(items, current, System.nanoTime()));
+        return items;
+    }
+
+    /**
+     * Pasa a una nueva versión del catálogo cuando se confirma la transacción actual
+     * (o inmediatamente si no hay transacción), para no descartar páginas por cambios que luego se revierten
+     */
+    public void invalidateAfterCommit() {
+        AfterCommit.run(() -> {
+            version.incrementAndGet();
+            pages.clear();
+        });
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("course.lookup.cache")
+                .description("Páginas de cursos de los selectores según su origen")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // ===== CLASES INTERNAS =====
+
+    private record Key(String pattern, int page, int pageSize) {
+    }
+
+    private record Snapshot(List<LookupDTO> items, long version, long loadedAt) {
+        boolean isExpired(Duration ttl) {
+            return System.nanoTime() - loadedAt > ttl.toNanos();
+        }
+    }
+}
@@ -3,21 +3,22 @@ package com.example.ejerciciofinal.services;
 import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.example.ejerciciofinal.dtos.CourseDTO;
+import com.example.ejerciciofinal.dtos.CourseSummary;
 import com.example.ejerciciofinal.dtos.CreateCourseDTO;
+import com.example.ejerciciofinal.dtos.EnrollmentResultDTO;
 import com.example.ejerciciofinal.dtos.ResponseCourseDTO;
 import com.example.ejerciciofinal.dtos.ResponseSeatDTO;
+import com.example.ejerciciofinal.dtos.RosterEntryDTO;
 import com.example.ejerciciofinal.dtos.SeatDTO;
 import com.example.ejerciciofinal.mappers.DTOMapper;
 import com.example.ejerciciofinal.model.Course;
@@ -26,6 +27,7 @@ import com.example.ejerciciofinal.model.Seat;
 import com.example.ejerciciofinal.model.Student;
 import com.example.ejerciciofinal.repository.CourseRepository;
 import com.example.ejerciciofinal.repository.ProfessorRepository;
+import com.example.ejerciciofinal.repository.SeatRepository;
 import com.example.ejerciciofinal.repository.StudentRepository;
 
 @Service
@@ -43,6 +45,29 @@ public class CourseService {
     @Autowired
     private StudentRepository studentRepository;
 
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private RowCountCache rowCountCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private EnrollmentCoalescer enrollmentCoalescer;
+
+    @Autowired
+    private CourseLockManager courseLockManager;
+
+    @Autowired
+    private CourseLookupCache courseLookupCache;
+
+    private static final String COURSES_TABLE = "courses";
+
     @Transactional
     public ResponseCourseDTO createCourse(CreateCourseDTO courseDTO) {
 
@@ -54,7 +79,8 @@ public class CourseService {
         
         Course course;
 
-        // Opción 1: Si se especificó cantidad de cupos, crear curso con esa cantidad
+        // Opción 1: Si se especificó cantidad de cupos, crear curso con esa capacidad
+        // Los Seat se crean recién cuando se inscribe un estudiante
         if (courseDTO.getSeatsAmmount() != null && courseDTO.getSeatsAmmount() > 0) {
             course = new Course(
                 courseDTO.getName(),
@@ -62,33 +88,49 @@ public class CourseService {
                 courseDTO.getSeatsAmmount()
             );
         }
-        // Opción 2: Si se proporcionaron SeatDTOs, convertirlos a Seats
+        // Opción 2: Si se proporcionaron SeatDTOs, la capacidad es la cantidad de SeatDTOs
+        // y solo se persisten los que ya tienen un estudiante asignado
         else if (courseDTO.getSeats() != null && !courseDTO.getSeats().isEmpty()) {
             Set<Seat> seats = new HashSet<>();
-            course = new Course(courseDTO.getName(), professor, new HashSet<>());
+            course = new Course(courseDTO.getName(), professor, courseDTO.getSeats().size());
             
             for (SeatDTO seatDTO : courseDTO.getSeats()) {
+                if (seatDTO.getStudentId() == null) {
+                    continue;
+                }
+                Student student = (Student) userService.getPersonById(seatDTO.getStudentId());
                 Seat seat = new Seat(
                     seatDTO.getYear() != null ? seatDTO.getYear() : LocalDate.now(),
                     seatDTO.getMark(),
-                    seatDTO.getStudentId() != null ? (Student) userService.getPersonById(seatDTO.getStudentId()) : null,
+                    student,
                     course
                 );
                 seats.add(seat);
             }
             course.setSeats(seats);
+            course.recalculateCounters();
         }
         // Opción 3: Crear curso sin cupos
         else {
             course = new Course(
                 courseDTO.getName(),
                 professor,
-                new HashSet<>()
+                0
             );
         }
 
         Course savedCourse = courseRepository.save(course);
 
+        // Las notas iniciales se suman al promedio de cada estudiante con un UPDATE atómico,
+        // sin guardar el Student leído (que pisaría cambios concurrentes de sus contadores)
+        for (Seat seat : savedCourse.getSeats()) {
+            if (seat.getMark() != null) {
+                studentRepository.applyMarkDelta(seat.getStudent().getId(), 1, seat.getMark());
+            }
+        }
+        rowCountCache.adjustAfterCommit(COURSES_TABLE, 1);
+        courseLookupCache.invalidateAfterCommit();
+
         return new ResponseCourseDTO(
                 savedCourse.getName(),
                 DTOMapper.toProfessorDTO(savedCourse.getProfessor()),
@@ -114,8 +156,13 @@ public class CourseService {
 
         Course courseWithStudents = courseRepository.findById(courseId)
                 .orElseThrow(() -> new IllegalArgumentException("No se encontró el curso con ID: " + courseId));
+
+        if (courseWithStudents.getSeats().size() + seats.size() > courseWithStudents.getCapacity()) {
+            throw new IllegalArgumentException("No hay cupos suficientes en el curso con ID: " + courseId);
+        }
         
         courseWithStudents.getSeats().addAll(seats);
+        courseWithStudents.recalculateCounters();
         courseWithStudents = courseRepository.save(courseWithStudents);
 
         return new ResponseCourseDTO(
@@ -148,67 +195,85 @@ public class CourseService {
         }
     }
 
-    @Transactional
-    public ResponseSeatDTO setMarkToStudentInCourse(Long courseId, Long studentId, Double mark){
+    /*
+     * Asigna (o modifica) la nota de un estudiante en un curso
+     * Solo carga el Seat del estudiante y aplica la diferencia de nota a los contadores del curso
+     * Si otra transacción modifica el mismo Seat entre la lectura y la escritura, se reintenta
+     * con el valor nuevo (OptimisticRetry), así la diferencia aplicada a los contadores siempre es correcta
+     * Las operaciones del mismo curso esperan su turno en CourseLockManager antes de abrir la transacción
+     * @param expectedVersion versión del Seat que vio el usuario (RosterEntryDTO.getSeatVersion()),
+     * null para no verificarla
+     * @throws EditConflictException si la nota cambió desde que el usuario la vio
+     */
+    public ResponseSeatDTO setMarkToStudentInCourse(Long courseId, Long studentId, Double mark, Long expectedVersion){
+        return courseLockManager.withCourseLock(courseId, () -> OptimisticRetry.execute(transactionTemplate,
+                "Otro usuario está modificando la misma nota, vuelva a intentarlo",
+                () -> applyMark(courseId, studentId, mark, expectedVersion)));
+    }
 
-        Optional<Course> courseOpt = courseRepository.findById(courseId);
-        if(courseOpt.isEmpty()){
-            throw new IllegalArgumentException("No se encontró el curso con ID: " + courseId);
-        }
+    private ResponseSeatDTO applyMark(Long courseId, Long studentId, Double mark, Long expectedVersion) {
 
-        Course course = courseOpt.get();
-        Optional<Seat> seatOpt = course.getSeats().stream()
-                .filter(seat -> seat.getStudent() != null && seat.getStudent().getId().equals(studentId))
-                .findFirst();
-        
-        if(seatOpt.isEmpty()){
-            throw new IllegalArgumentException("El estudiante con ID: " + studentId + " no está inscrito en el curso con ID: " + courseId);
+        // Bloquea la fila del curso antes que el Seat, en el mismo orden que las inscripciones y cargas masivas
+        courseRepository.lockAvailableSeats(courseId)
+                .orElseThrow(() -> new IllegalArgumentException("No se encontró el curso con ID: " + courseId));
+
+        Seat seat = seatRepository.findByStudentIdAndCourseId(studentId, courseId)
+                .orElseThrow(() -> new IllegalArgumentException("El estudiante con ID: " + studentId + " no está inscrito en el curso con ID: " + courseId));
+
+        if (expectedVersion != null && !expectedVersion.equals(seat.getVersion())) {
+            throw new EditConflictException("Otro usuario modificó la nota de este estudiante"
+                    + (seat.getMark() != null ? String.format(" (nota actual: %.2f)", seat.getMark()) : " (ahora sin nota)")
+                    + ", revise el valor antes de volver a guardar");
         }
-        
-        Seat seat = seatOpt.get();
+
+        Double previousMark = seat.getMark();
         seat.setMark(mark);
+        // La verificación de versión se hace acá, antes de aplicar la diferencia a los contadores
+        seatRepository.flush();
+        courseRepository.applyMarkDelta(courseId, gradedDelta(previousMark, mark), markDelta(previousMark, mark));
         
-        // Recalcular y actualizar el promedio del estudiante
-        Student student = seat.getStudent();
-        Double newAvgMark = student.calculateAvgMark();
-        student.setAvgMark(newAvgMark);
-        
-        courseRepository.save(course);
+        // Actualizar el promedio del estudiante con la diferencia de nota, sin cargar sus demás Seat
+        studentRepository.applyMarkDelta(studentId, gradedDelta(previousMark, mark), markDelta(previousMark, mark));
 
-        return new ResponseSeatDTO(
+        ResponseSeatDTO response = new ResponseSeatDTO(
                 seat.getYear(),
                 DTOMapper.toStudentDTO(seat.getStudent()),
                 seat.getMark()
         );
+        response.setVersion(seat.getVersion());
+        return response;
     }
 
     /*
-     * Obtiene todos los cursos de tipo Course paginados
-     * @param pageIndex índice de la página (comienza en 0)
+     * Obtiene la página de cursos siguiente a lastId (paginación por clave, orden por id)
+     * @param lastId id del último curso de la página anterior (0 para la primera página)
      * @param pageSize cantidad de registros por página
-     *  return Page<Course> con los cursos paginados
+     * @return List<CourseSummary> con id mayor a lastId
      */
     @Transactional(readOnly = true)
-    public Page<Course> findAllCoursesPaginated(int pageIndex, int pageSize){
-        Pageable pageable =  PageRequest.of(pageIndex, pageSize, Sort.by("id").ascending());
-        return courseRepository.findAll(pageable);
+    public List<CourseSummary> findCoursesAfter(long lastId, int pageSize){
+        return courseRepository.findSummariesAfter(lastId, Limit.of(pageSize));
+    }
+
+    /*
+     * Obtiene el id del curso en la posición offset (orden por id)
+     * @param offset posición del curso (comienza en 0)
+     * @return id del curso, null si no hay tantos cursos
+     */
+    @Transactional(readOnly = true)
+    public Long findCourseIdAtOffset(int offset){
+        return courseRepository.findIdsOrderedById(PageRequest.of(offset, 1)).stream()
+                .findFirst()
+                .orElse(null);
     }
 
     /*  
      * Cuenta el total de cursos registrados
+     * Se toma de RowCountCache, solo consulta la base cuando la cache expiró
      * @return total de registros Course
      */
-    @Transactional(readOnly = true)
     public long countCourses(){
-        return courseRepository.count();
-    }
-
-    public List<CourseDTO> getAllCourses() {
-        Optional<List<Course>> coursesOpt = Optional.of(courseRepository.findAll());
-        if(coursesOpt.isPresent()){
-            return DTOMapper.toCourseDTOs(coursesOpt.get());
-        }
-        else return null;
+        return rowCountCache.get(COURSES_TABLE, courseRepository::count);
     }
 
     /*
@@ -223,89 +288,83 @@ public class CourseService {
 
     /*
      * Función para asignar un estudiante a un curso
+     * Las inscripciones concurrentes al mismo curso se agrupan en EnrollmentCoalescer y se aplican en una
+     * sola transacción por lote: un bloqueo del curso, los Seat en batch y un único UPDATE de los contadores
+     * El lote completo toma el bloqueo del curso en CourseLockManager, no cada solicitud
+     * Si el curso está lleno, o ya hay estudiantes esperando (los lugares que se liberen son para ellos),
+     * el estudiante queda al final de la lista de espera y WaitlistService lo inscribe cuando le toque
      * @param studentId ID del estudiante, courseId ID del curso
+     * @return ENROLLED, WAITLISTED con la posición en la lista de espera, o PENDING si no terminó a tiempo
+     * (ver EnrollmentCoalescer.enroll)
      */
-    @Transactional
-    public void assignStudentToCourse(Long studentId, Long courseId) {
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new IllegalArgumentException("No se encontró el curso con ID: " + courseId));
-        
-        // Obtener estudiante directamente del repositorio de estudiantes (con eager loading)
-        Student student = studentRepository.findById(studentId)
-                .orElseThrow(() -> new IllegalArgumentException("No se encontró el estudiante con ID: " + studentId));
-        
-        // Verificar si el estudiante ya está asignado al curso
-        boolean alreadyAssigned = course.getSeats().stream()
-                .anyMatch(seat -> seat.getStudent() != null && seat.getStudent().getId().equals(studentId));
-        if (alreadyAssigned) {
-            throw new IllegalArgumentException("El estudiante con ID: " + studentId + " ya está asignado al curso con ID: " + courseId);
-        }
-        // Verificar si hay cupos disponibles
-        Optional<Seat> availableSeatOpt = course.getSeats().stream()
-                .filter(seat -> seat.getStudent() == null)
-                .findFirst();
-        if (availableSeatOpt.isEmpty()) {
-            throw new IllegalArgumentException("No hay cupos disponibles en el curso con ID: " + courseId);
-        }
-        // Asignar el estudiante al cupo disponible
-        Seat availableSeat = availableSeatOpt.get();
-        availableSeat.setStudent(student);
-        student.getSeats().add(availableSeat);
-        courseRepository.save(course);
+    public EnrollmentResultDTO assignStudentToCourse(Long studentId, Long courseId) {
+        return enrollmentCoalescer.enroll(studentId, courseId);
     }
 
     /*
      * Función para desinscribir un estudiante de un curso
+     * Elimina el Seat del estudiante y libera su lugar (y su nota) en los contadores del curso,
+     * que luego ocupa el primero de la lista de espera (WaitlistService)
+     * Si la nota del Seat cambia mientras tanto, se reintenta con la nota nueva
+     * Las operaciones del mismo curso esperan su turno en CourseLockManager antes de abrir la transacción
      * @param studentId ID del estudiante, courseId ID del curso
      */
-    @Transactional
     public void unassignStudentFromCourse(Long studentId, Long courseId) {
-        Course course = courseRepository.findById(courseId)
+        courseLockManager.withCourseLock(courseId, () -> OptimisticRetry.execute(transactionTemplate,
+                "Otro usuario está modificando la inscripción de este estudiante, vuelva a intentarlo",
+                () -> {
+                    removeSeat(studentId, courseId);
+                    return null;
+                }));
+    }
+
+    private void removeSeat(Long studentId, Long courseId) {
+        // Bloquea la fila del curso antes que el Seat, en el mismo orden que las inscripciones y cargas masivas
+        courseRepository.lockAvailableSeats(courseId)
                 .orElseThrow(() -> new IllegalArgumentException("No se encontró el curso con ID: " + courseId));
-        
-        // Buscar el seat del estudiante en este curso
-        Optional<Seat> studentSeatOpt = course.getSeats().stream()
-                .filter(seat -> seat.getStudent() != null && seat.getStudent().getId().equals(studentId))
-                .findFirst();
-        
-        if (studentSeatOpt.isEmpty()) {
-            throw new IllegalArgumentException("El estudiante con ID: " + studentId + " no está inscrito en el curso con ID: " + courseId);
+
+        Seat studentSeat = seatRepository.findByStudentIdAndCourseId(studentId, courseId)
+                .orElseThrow(() -> new IllegalArgumentException("El estudiante con ID: " + studentId + " no está inscrito en el curso con ID: " + courseId));
+
+        Double mark = studentSeat.getMark();
+        seatRepository.delete(studentSeat);
+        // El DELETE verifica la versión del Seat antes de liberar el lugar con la nota leída
+        seatRepository.flush();
+        courseRepository.releaseSeat(courseId, gradedDelta(mark, null), markDelta(mark, null));
+
+        // Si el Seat tenía nota, deja de contar para el promedio del estudiante
+        if (mark != null) {
+            studentRepository.applyMarkDelta(studentId, gradedDelta(mark, null), markDelta(mark, null));
         }
-        
-        // Desinscribir: dejar el seat vacío (sin estudiante ni nota)
-        Seat studentSeat = studentSeatOpt.get();
-        Student student = studentSeat.getStudent();
-        
-        // Remover la relación bidireccional
-        student.getSeats().remove(studentSeat);
-        studentSeat.setStudent(null);
-        studentSeat.setMark(null); // Limpiar la nota también
-        
-        courseRepository.save(course);
+        // El lugar liberado es para el primero de la lista de espera
+        waitlistService.signalAfterCommit(courseId);
+    }
+
+    /*
+     * Diferencia en la cantidad de notas cargadas al pasar de previousMark a newMark (-1, 0 o 1)
+     */
+    private static int gradedDelta(Double previousMark, Double newMark) {
+        return (newMark != null ? 1 : 0) - (previousMark != null ? 1 : 0);
     }
 
     /*
-     * Permite obtener a los students que están asignados a un curso específico
-     * Retorna estudiantes con seats y seats.course cargados eager para evitar LazyInitializationException
+     * Diferencia en la suma de notas al pasar de previousMark a newMark
+     */
+    private static double markDelta(Double previousMark, Double newMark) {
+        return (newMark != null ? newMark : 0.0) - (previousMark != null ? previousMark : 0.0);
+    }
+
+    /*
+     * Permite obtener a los estudiantes que están asignados a un curso específico,
+     * con la nota y el año de inscripción de cada uno en ese curso
+     * Una sola consulta sin importar la cantidad de inscritos (otra más solo si el curso no tiene inscritos)
      */
     @Transactional(readOnly = true)
-    public List<Student> getStudentsInCourse(Long courseId){
-        Optional<Course> courseOpt = courseRepository.findById(courseId);
-        if(courseOpt.isEmpty()){
+    public List<RosterEntryDTO> getCourseRoster(Long courseId){
+        List<RosterEntryDTO> roster = seatRepository.findRosterByCourseId(courseId);
+        if (roster.isEmpty() && !courseRepository.existsById(courseId)) {
             throw new IllegalArgumentException("No se encontró el curso con ID: " + courseId);
         }
-        Course course = courseOpt.get();
-        
-        // Obtener IDs de estudiantes del curso
-        List<Long> studentIds = course.getSeats().stream()
-                .filter(seat -> seat.getStudent() != null)
-                .map(seat -> seat.getStudent().getId())
-                .toList();
-        
-        // Cargar estudiantes completos con eager loading de seats y seats.course
-        return studentIds.stream()
-                .map(id -> studentRepository.findById(id).orElse(null))
-                .filter(student -> student != null)
-                .toList();
+        return roster;
     }
 }
@@ -0,0 +1,13 @@
+package com.example.ejerciciofinal.services;
+
+/**
+ * Otro usuario modificó el mismo dato desde que se leyó (control de concurrencia optimista)
+ * Extiende IllegalArgumentException para que las vistas que no lo distinguen lo muestren como cualquier
+ * otro error; las que sí, pueden recargar el dato y pedir que se revise antes de volver a guardar
+ */
+public class EditConflictException extends IllegalArgumentException {
+
+    public EditConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,341 @@
+package com.example.ejerciciofinal.services;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ejerciciofinal.dtos.EnrollmentResultDTO;
+import com.example.ejerciciofinal.model.Course;
+import com.example.ejerciciofinal.model.Seat;
+import com.example.ejerciciofinal.repository.CourseRepository;
+import com.example.ejerciciofinal.repository.SeatRepository;
+import com.example.ejerciciofinal.repository.StudentRepository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Agrupa las inscripciones individuales concurrentes a un mismo curso y las aplica juntas (group commit)
+ *
+ * La primera solicitud de un curso abre un lote que se cierra pasado window o al llegar a max-batch solicitudes.
+ * Cada lote es una sola transacción: un bloqueo de la fila del curso con su capacidad, una consulta de estudiantes
+ * existentes, una de ya inscritos, los Seat nuevos en batch y un único UPDATE de los contadores; los que no entran
+ * van a la lista de espera. Cada solicitud recibe su propio resultado (o error) recién después del commit.
+ * Si el lote falla por algo inesperado se reintenta cada solicitud por separado, así una no arrastra a las demás
+ *
+ * Con carga baja un lote tiene una sola solicitud y solo agrega window de demora; en los picos de inscripción
+ * el costo por curso pasa a ser una transacción por lote en lugar de una por solicitud
+ *
+ * enroll espera como máximo timeout (bloquea el hilo de la vista). Si se vence antes de que su lote empiece,
+ * la solicitud se retira y no se aplica; si el lote ya empezó se devuelve PENDING, porque puede confirmarse igual
+ *
+ * Métricas: enrollment.batch.size, enrollment.batch.duration{result} y enrollment.request.latency
+ */
+@Service
+public class EnrollmentCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(EnrollmentCoalescer.class);
+
+    private final CourseRepository courseRepository;
+    private final StudentRepository studentRepository;
+    private final SeatRepository seatRepository;
+    private final WaitlistService waitlistService;
+    private final CourseLockManager courseLockManager;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Duration window;
+    private final int maxBatch;
+    private final Duration timeout;
+
+    private final Map<Long, Batch> openBatches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("enrollment-window").daemon(true).factory());
+    private final ThreadPoolExecutor executor;
+
+    private final DistributionSummary batchSizeSummary;
+    private final Timer requestLatency;
+
+    public EnrollmentCoalescer(CourseRepository courseRepository, StudentRepository studentRepository,
+            SeatRepository seatRepository, WaitlistService waitlistService,
+            CourseLockManager courseLockManager, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+            @Value("${app.enrollment.window:PT0.01S}") Duration window,
+            @Value("${app.enrollment.max-batch:100}") int maxBatch,
+            @Value("${app.enrollment.workers:4}") int workers,
+            @Value("${app.enrollment.timeout:PT3S}") Duration timeout) {
+        this.courseRepository = courseRepository;
+        this.studentRepository = studentRepository;
+        this.seatRepository = seatRepository;
+        this.waitlistService = waitlistService;
+        this.courseLockManager = courseLockManager;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.window = window;
+        this.maxBatch = maxBatch;
+        this.timeout = timeout;
+        // Cada hilo ocupa una conexión del pool mientras aplica un lote
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1000),
+                Thread.ofPlatform().name("enrollment-batch-", 1).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        batchSizeSummary = DistributionSummary.builder("enrollment.batch.size")
+                .description("Inscripciones aplicadas por transacción")
+                .register(meterRegistry);
+        requestLatency = Timer.builder("enrollment.request.latency")
+                .description("Tiempo desde la solicitud de inscripción hasta su resultado")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        executor.shutdown();
+    }
+
+    /**
+     * Inscribe al estudiante y espera el resultado de su lote, como máximo timeout
+     * @return ENROLLED, WAITLISTED con la posición en la lista de espera, o PENDING si se venció el tiempo
+     * con el lote ya en curso (el resultado se ve al recargar)
+     * @throws IllegalArgumentException también si se venció el tiempo antes de que empiece el lote:
+     * la inscripción no se aplicó
+     */
+    public EnrollmentResultDTO enroll(Long studentId, Long courseId) {
+        Request request = enqueue(studentId, courseId);
+        try {
+            return request.future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IllegalArgumentException iae) {
+                throw iae;
+            }
+            throw new IllegalArgumentException("No se pudo inscribir al estudiante: " + ex.getCause().getMessage());
+        } catch (TimeoutException ex) {
+            if (request.claim()) {
+                // El lote todavía no había empezado: ya no la va a aplicar
+                throw new IllegalArgumentException("Hay demasiadas inscripciones en curso y esta no se procesó, vuelva a intentarlo");
+            }
+            // El lote está en curso y puede confirmarse igual más tarde
+            return EnrollmentResultDTO.pending(courseId, studentId);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("Se interrumpió la inscripción del estudiante");
+        }
+    }
+
+    /**
+     * Encola la inscripción del estudiante en el lote abierto del curso
+     * @return se completa después del commit con ENROLLED o WAITLISTED, o con IllegalArgumentException
+     */
+    public CompletableFuture<EnrollmentResultDTO> submit(Long studentId, Long courseId) {
+        return enqueue(studentId, courseId).future;
+    }
+
+    private Request enqueue(Long studentId, Long courseId) {
+        if (studentId == null || courseId == null) {
+            throw new IllegalArgumentException("El estudiante y el curso no pueden ser nulos");
+        }
+        Request request = new Request(studentId, System.nanoTime(), new CompletableFuture<>(), new AtomicBoolean());
+        while (true) {
+            Batch batch = openBatches.computeIfAbsent(courseId, this::openBatch);
+            synchronized (batch) {
+                if (!batch.closed) {
+                    batch.requests.add(request);
+                    if (batch.requests.size() >= maxBatch) {
+                        close(batch);
+                    }
+                    return request;
+                }
+            }
+            // El lote se cerró entre computeIfAbsent y synchronized: se abre otro
+        }
+    }
+
+    private Batch openBatch(Long courseId) {
+        Batch batch = new Batch(courseId);
+        scheduler.schedule(() -> {
+            synchronized (batch) {
+                close(batch);
+            }
+        }, window.toNanos(), TimeUnit.NANOSECONDS);
+        return batch;
+    }
+
+    // Se llama con el monitor del lote tomado
+    private void close(Batch batch) {
+        if (batch.closed) {
+            return;
+        }
+        batch.closed = true;
+        openBatches.remove(batch.courseId, batch);
+        try {
+            executor.execute(() -> {
+                // Se descartan las solicitudes que se retiraron por timeout mientras el lote esperaba
+                List<Request> requests = batch.requests.stream().filter(Request::claim).toList();
+                if (!requests.isEmpty()) {
+                    apply(batch.courseId, requests);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            batch.requests.forEach(request -> fail(request,
+                    new IllegalArgumentException("Hay demasiadas inscripciones en curso, vuelva a intentarlo")));
+        }
+    }
+
+    private void apply(Long courseId, List<Request> requests) {
+        long start = System.nanoTime();
+        Map<Request, Object> outcomes;
+        try {
+            // Un bloqueo del curso por lote, tomado antes de abrir la transacción
+            outcomes = courseLockManager.withCourseLock(courseId,
+                    () -> transactionTemplate.execute(status -> enroll(courseId, requests)));
+        } catch (IllegalArgumentException ex) {
+            // enroll devuelve los errores de cada solicitud: este es del bloqueo y vale para todo el lote
+            record(start, requests.size(), "failed");
+            requests.forEach(request -> fail(request, ex));
+            return;
+        } catch (RuntimeException ex) {
+            record(start, requests.size(), "failed");
+            if (requests.size() > 1) {
+                // Se aísla la solicitud que provoca el error
+                log.warn("Falló el lote de {} inscripciones al curso {}, se reintentan por separado: {}",
+                        requests.size(), courseId, ex.getMessage());
+                requests.forEach(request -> apply(courseId, List.of(request)));
+            } else {
+                fail(requests.get(0), new IllegalArgumentException("No se pudo inscribir al estudiante: " + ex.getMessage()));
+            }
+            return;
+        }
+
+        record(start, requests.size(), "committed");
+        outcomes.forEach((request, outcome) -> {
+            if (outcome instanceof EnrollmentResultDTO result) {
+                requestLatency.record(Duration.ofNanos(System.nanoTime() - request.submittedAt));
+                request.future.complete(result);
+            } else {
+                fail(request, (IllegalArgumentException) outcome);
+            }
+        });
+    }
+
+    /**
+     * Aplica el lote en la transacción actual
+     * @return por solicitud, su EnrollmentResultDTO o la IllegalArgumentException a devolver
+     */
+    private Map<Request, Object> enroll(Long courseId, List<Request> requests) {
+        Map<Request, Object> outcomes = new LinkedHashMap<>();
+
+        // Bloquea la fila del curso: una sola verificación de capacidad para todo el lote
+        Integer available = courseRepository.lockAvailableSeats(courseId).orElse(null);
+        if (available == null) {
+            requests.forEach(request -> outcomes.put(request,
+                    new IllegalArgumentException("No se encontró el curso con ID: " + courseId)));
+            return outcomes;
+        }
+
+        List<Long> studentIds = requests.stream().map(Request::studentId).distinct().toList();
+        Set<Long> existing = new HashSet<>(studentRepository.findExistingIds(studentIds));
+        Set<Long> enrolled = new HashSet<>(seatRepository.findEnrolledStudentIds(courseId, studentIds));
+        // Si hay gente esperando, los lugares libres son para ellos: todo el lote va a la lista de espera
+        boolean waiting = waitlistService.hasWaiting(courseId);
+
+        Course course = courseRepository.getReferenceById(courseId);
+        LocalDate today = LocalDate.now();
+        List<Seat> seats = new ArrayList<>();
+        List<Long> toWaitlist = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (Request request : requests) {
+            Long studentId = request.studentId;
+            if (!existing.contains(studentId)) {
+                outcomes.put(request, new IllegalArgumentException("No se encontró el estudiante con ID: " + studentId));
+            } else if (enrolled.contains(studentId) || !seen.add(studentId)) {
+                // Incluye la misma inscripción pedida dos veces en el lote
+                outcomes.put(request, new IllegalArgumentException("El estudiante con ID: " + studentId
+                        + " ya está asignado al curso con ID: " + courseId));
+            } else if (!waiting && seats.size() < available) {
+                seats.add(new Seat(today, null, studentRepository.getReferenceById(studentId), course));
+                outcomes.put(request, EnrollmentResultDTO.enrolled(courseId, studentId));
+            } else {
+                toWaitlist.add(studentId);
+            }
+        }
+
+        // Los Seat se insertan en batch (hibernate.jdbc.batch_size) y los contadores con un único UPDATE
+        if (!seats.isEmpty()) {
+            seatRepository.saveAll(seats);
+            seatRepository.flush();
+            courseRepository.applyEnrollmentDelta(courseId, seats.size(), 0, 0.0);
+        }
+
+        Map<Long, Long> positions = waitlistService.enqueueAll(courseId, toWaitlist);
+        for (Request request : requests) {
+            if (!outcomes.containsKey(request)) {
+                Long position = positions.get(request.studentId);
+                outcomes.put(request, position != null
+                        ? EnrollmentResultDTO.waitlisted(courseId, request.studentId, position)
+                        : new IllegalArgumentException("El estudiante con ID: " + request.studentId
+                                + " ya está en la lista de espera del curso con ID: " + courseId));
+            }
+        }
+        return outcomes;
+    }
+
+    private void record(long start, int size, String result) {
+        batchSizeSummary.record(size);
+        Timer.builder("enrollment.batch.duration")
+                .description("Duración de la transacción de cada lote de inscripciones")
+                .tag("result", result)
+                .register(meterRegistry)
+                .record(Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private void fail(Request request, IllegalArgumentException ex) {
+        requestLatency.record(Duration.ofNanos(System.nanoTime() - request.submittedAt));
+        request.future.completeExceptionally(ex);
+    }
+
+    // ===== CLASES INTERNAS =====
+
+    /**
+     * Solicitud de inscripción, claimed la toma el lote al empezar a aplicarla o enroll al retirarla por timeout
+     */
+    private record Request(Long studentId, long submittedAt, CompletableFuture<EnrollmentResultDTO> future,
+            AtomicBoolean claimed) {
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    private static final class Batch {
+        private final Long courseId;
+        private final List<Request> requests = new ArrayList<>();
+        private boolean closed;
+
+        private Batch(Long courseId) {
+            this.courseId = courseId;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.ejerciciofinal.services;
+
+import java.io.File;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exportación completa ejecutada en segundo plano por ExportJobService
+ * El estado lo modifica el hilo del executor y lo leen las vistas, por eso los campos son volatile
+ */
+public class ExportJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportJob.class);
+
+    public enum State {
+        QUEUED("En cola"),
+        RUNNING("Generando"),
+        DONE("Listo"),
+        FAILED("Error"),
+        CANCELLED("Cancelado");
+
+        private final String label;
+
+        State(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * Recibe los cambios de estado y de progreso, desde el hilo del executor
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onUpdate(ExportJob job);
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final ExportReport report;
+    private final ExportFormat format;
+    private final String fileName;
+    private final long estimatedRows;
+    private final Listener listener;
+
+    private volatile State state = State.QUEUED;
+    private volatile long rows;
+    private volatile File file;
+    private volatile String error;
+    private volatile long finishedAt;
+    private volatile boolean cancelRequested;
+
+    ExportJob(ExportReport report, ExportFormat format, String fileName, long estimatedRows, Listener listener) {
+        this.report = report;
+        this.format = format;
+        this.fileName = fileName;
+        this.estimatedRows = estimatedRows;
+        this.listener = listener;
+    }
+
+    /**
+     * Pide la cancelación: si está en cola no se ejecuta y si está corriendo se corta en el siguiente lote de filas
+     * El archivo generado (si lo hay) se elimina
+     */
+    public void cancel() {
+        cancelRequested = true;
+        if (state == State.DONE) {
+            state = State.CANCELLED;
+            deleteFile();
+        }
+    }
+
+    /**
+     * Progreso entre 0 y 1 sobre la cantidad estimada de filas
+     */
+    public double getProgress() {
+        if (state == State.DONE) {
+            return 1.0;
+        }
+        return estimatedRows > 0 ? Math.min(1.0, (double) rows / estimatedRows) : 0.0;
+    }
+
+    public boolean isFinished() {
+        return state == State.DONE || state == State.FAILED || state == State.CANCELLED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public ExportReport getReport() {
+        return report;
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    // ===== USO INTERNO DE ExportJobService =====
+
+    boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    long getFinishedAt() {
+        return finishedAt;
+    }
+
+    void setState(State state) {
+        this.state = state;
+        if (isFinished()) {
+            this.finishedAt = System.nanoTime();
+        }
+    }
+
+    void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    void setFile(File file) {
+        this.file = file;
+    }
+
+    void setError(String error) {
+        this.error = error;
+    }
+
+    void deleteFile() {
+        File current = file;
+        if (current != null && current.exists() && !current.delete()) {
+            current.deleteOnExit();
+        }
+    }
+
+    void notifyListener() {
+        try {
+            listener.onUpdate(this);
+        } catch (RuntimeException ex) {
+            // La vista que lo inició puede haberse cerrado, el trabajo sigue igual
+            log.debug("No se pudo notificar el progreso de la exportación {}: {}", id, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.ejerciciofinal.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ejecuta las exportaciones completas en segundo plano, fuera del hilo de la petición de la UI
+ * Cada trabajo escribe a un archivo temporal y avisa su progreso al Listener; al terminar el archivo
+ * queda disponible para descargar hasta que vence file-ttl
+ *
+ * El executor es acotado: como mucho max-concurrent hilos (cada uno ocupa una conexión del pool mientras
+ * exporta) y queue-capacity trabajos en espera, el resto se rechaza. Así una exportación grande no le quita
+ * conexiones ni CPU a las pantallas interactivas; los hilos además corren con prioridad baja
+ *
+ * Métricas: export.job.duration{report, format, result}, export.job.rows{report, format},
+ * export.job.rejected, export.job.active y export.job.queued
+ */
+@Service
+public class ExportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportJobService.class);
+
+    // Intervalo mínimo entre avisos de progreso, para no saturar el push con una actualización por lote
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private final StreamingExportService exportService;
+    private final RowCountCache rowCountCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Duration fileTtl;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    public ExportJobService(StreamingExportService exportService, RowCountCache rowCountCache,
+            JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+            @Value("${app.export.jobs.max-concurrent:2}") int maxConcurrent,
+            @Value("${app.export.jobs.queue-capacity:10}") int queueCapacity,
+            @Value("${app.export.jobs.file-ttl:PT30M}") Duration fileTtl) {
+        this.exportService = exportService;
+        this.rowCountCache = rowCountCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.fileTtl = fileTtl;
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("export-job-", 1).daemon(true).priority(Thread.MIN_PRIORITY).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("export.job.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Exportaciones en ejecución")
+                .register(meterRegistry);
+        Gauge.builder("export.job.queued", executor, e -> e.getQueue().size())
+                .description("Exportaciones esperando un hilo libre")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Encola una exportación completa
+     * @param listener recibe los cambios de estado y el progreso desde el hilo del executor
+     * @return el trabajo encolado, para consultar su estado y su archivo
+     * @throws IllegalArgumentException si ya hay demasiadas exportaciones en curso
+     */
+    public ExportJob submit(ExportReport report, ExportFormat format, ExportJob.Listener listener) {
+        if (report == null || format == null || listener == null) {
+            throw new IllegalArgumentException("El listado, el formato y el listener no pueden ser nulos");
+        }
+
+        long estimatedRows = rowCountCache.get(report.getTable(),
+                () -> jdbcTemplate.queryForObject("SELECT count(*) FROM " + report.getTable(), Long.class));
+        ExportJob job = new ExportJob(report, format, exportService.fileName(report, format), estimatedRows, listener);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException ex) {
+            meterRegistry.counter("export.job.rejected").increment();
+            throw new IllegalArgumentException("Hay demasiadas exportaciones en curso, vuelva a intentarlo en unos minutos");
+        }
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    private void run(ExportJob job) {
+        if (job.isCancelRequested()) {
+            job.setState(ExportJob.State.CANCELLED);
+            job.notifyListener();
+            return;
+        }
+
+        job.setState(ExportJob.State.RUNNING);
+        job.notifyListener();
+        long start = System.nanoTime();
+        long[] lastNotified = {start};
+        String result;
+        try {
+            File file = Files.createTempFile("export-" + job.getReport().getFileNamePrefix().toLowerCase() + "-",
+                    "." + job.getFormat().getExtension()).toFile();
+            job.setFile(file);
+            long rows;
+            try (OutputStream output = Files.newOutputStream(file.toPath())) {
+                rows = exportService.export(job.getReport(), job.getFormat(), output, written -> {
+                    if (job.isCancelRequested()) {
+                        throw new CancellationException();
+                    }
+                    job.setRows(written);
+                    long now = System.nanoTime();
+                    if (now - lastNotified[0] >= PROGRESS_INTERVAL_NANOS) {
+                        lastNotified[0] = now;
+                        job.notifyListener();
+                    }
+                });
+            }
+            job.setRows(rows);
+            if (job.isCancelRequested()) {
+                throw new CancellationException();
+            }
+            job.setState(ExportJob.State.DONE);
+            result = "done";
+            log.info("Exportación {} lista: {} filas en {} ms", job.getFileName(), rows,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (CancellationException ex) {
+            job.deleteFile();
+            job.setState(ExportJob.State.CANCELLED);
+            result = "cancelled";
+            log.info("Exportación {} cancelada", job.getFileName());
+        } catch (IOException | RuntimeException ex) {
+            job.deleteFile();
+            job.setError(ex.getMessage());
+            job.setState(ExportJob.State.FAILED);
+            result = "failed";
+            log.error("Error en la exportación {}", job.getFileName(), ex);
+        }
+
+        Timer.builder("export.job.duration")
+                .description("Duración de las exportaciones en segundo plano")
+                .tag("report", job.getReport().name())
+                .tag("format", job.getFormat().name())
+                .tag("result", result)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("export.job.rows")
+                .description("Filas escritas por exportación")
+                .tag("report", job.getReport().name())
+                .tag("format", job.getFormat().name())
+                .register(meterRegistry)
+                .record(job.getRows());
+        job.notifyListener();
+    }
+
+    /**
+     * Elimina los archivos de las exportaciones terminadas hace más de file-ttl
+     */
+    @Scheduled(fixedDelayString = "${app.export.jobs.cleanup-interval:PT5M}")
+    public void deleteExpiredFiles() {
+        long now = System.nanoTime();
+        jobs.values().removeIf(job -> {
+            if (job.isFinished() && now - job.getFinishedAt() > fileTtl.toNanos()) {
+                job.deleteFile();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobs.values().forEach(ExportJob::cancel);
+        executor.shutdownNow();
+        jobs.values().forEach(ExportJob::deleteFile);
+    }
+}
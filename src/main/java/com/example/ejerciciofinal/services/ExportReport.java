@@ -0,0 +1,118 @@
+package com.example.ejerciciofinal.services;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Listados que se exportan completos con StreamingExportService
+ * Cada uno define la consulta SQL (sin entidades ni relaciones lazy) y sus columnas, con el mismo
+ * encabezado y formato que las columnas del Grid de la vista correspondiente
+ */
+public enum ExportReport {
+
+    USERS("Listado de Usuarios del Sistema", "Usuarios", "persons",
+            "SELECT p.id, p.name, p.email, p.phone, s.student_number, pr.salary, "
+            + "       s.id IS NOT NULL AS is_student, pr.id IS NOT NULL AS is_professor, "
+            + "       a.id IS NOT NULL AS has_address, a.city, a.state, a.country "
+            + "FROM persons p "
+            + "LEFT JOIN students s ON s.id = p.id "
+            + "LEFT JOIN professors pr ON pr.id = p.id "
+            + "LEFT JOIN addresses a ON a.id = p.address_id "
+            + "ORDER BY p.id ASC",
+            List.of(
+                    new Column("ID", rs -> rs.getLong("id")),
+                    new Column("Nombre", rs -> rs.getString("name")),
+                    new Column("Email", rs -> rs.getString("email")),
+                    new Column("Teléfono", rs -> rs.getString("phone")),
+                    new Column("Tipo", rs -> {
+                        if (rs.getBoolean("is_student")) {
+                            return "Estudiante";
+                        } else if (rs.getBoolean("is_professor")) {
+                            return "Profesor";
+                        }
+                        return "Desconocido";
+                    }),
+                    new Column("Nro. Estudiante / Salario", rs -> {
+                        if (rs.getBoolean("is_student")) {
+                            String studentNumber = rs.getString("student_number");
+                            return studentNumber != null ? "Nro: " + studentNumber : "N/A";
+                        } else if (rs.getBoolean("is_professor")) {
+                            return String.format("Salario: $%.2f", rs.getDouble("salary"));
+                        }
+                        return "-";
+                    }),
+                    new Column("Ubicación", rs -> {
+                        if (rs.getBoolean("has_address")) {
+                            return rs.getString("city") + ", " + rs.getString("state") + ", " + rs.getString("country");
+                        }
+                        return "Sin dirección";
+                    }))),
+
+    COURSES("Listado de Cursos del Sistema", "Cursos", "courses",
+            "SELECT c.id, c.name, p.name AS professor_name, c.capacity, c.occupied "
+            + "FROM courses c LEFT JOIN persons p ON p.id = c.professor_id "
+            + "ORDER BY c.id ASC",
+            List.of(
+                    new Column("ID", rs -> rs.getLong("id")),
+                    new Column("Nombre", rs -> rs.getString("name")),
+                    new Column("Profesor", rs -> {
+                        String professorName = rs.getString("professor_name");
+                        return professorName != null ? professorName : "Sin profesor asignado";
+                    }),
+                    new Column("Cupos (ocupados / total)", rs -> {
+                        int capacity = rs.getInt("capacity");
+                        int occupied = rs.getInt("occupied");
+                        return String.format("Total: %d | Ocupados: %d | Disponibles: %d",
+                                capacity, occupied, capacity - occupied);
+                    })));
+
+    private final String title;
+    private final String fileNamePrefix;
+    private final String table;
+    private final String sql;
+    private final List<Column> columns;
+
+    ExportReport(String title, String fileNamePrefix, String table, String sql, List<Column> columns) {
+        this.title = title;
+        this.fileNamePrefix = fileNamePrefix;
+        this.table = table;
+        this.sql = sql;
+        this.columns = columns;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getFileNamePrefix() {
+        return fileNamePrefix;
+    }
+
+    /**
+     * Tabla principal del listado, su cantidad de filas (RowCountCache) es el total estimado de la exportación
+     */
+    String getTable() {
+        return table;
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Columna exportada: encabezado y cómo se obtiene su valor de la fila actual del cursor
+     * Los valores Number se escriben como números en XLSX, el resto como texto
+     */
+    record Column(String header, ValueReader reader) {
+    }
+
+    @FunctionalInterface
+    interface ValueReader {
+        Object read(ResultSet rs) throws SQLException;
+    }
+}
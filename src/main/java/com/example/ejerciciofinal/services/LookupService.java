@@ -0,0 +1,53 @@
+package com.example.ejerciciofinal.services;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.ejerciciofinal.dtos.LookupDTO;
+import com.example.ejerciciofinal.repository.CourseRepository;
+import com.example.ejerciciofinal.repository.PersonRepository;
+
+/**
+ * Servicio de solo lectura para los selectores de cursos y profesores
+ * Devuelve proyecciones (id, nombre) filtradas y paginadas en la base, pensado para el
+ * callback lazy de los ComboBox: no carga entidades ni colecciones
+ */
+@Service
+public class LookupService {
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private CourseLookupCache courseLookupCache;
+
+    /*
+     * Busca cursos cuyo nombre contenga el filtro, ordenados por nombre
+     * Las páginas se sirven desde CourseLookupCache mientras no se cree un curso
+     * @param filter texto ingresado en el ComboBox
+     * @param page, pageSize página pedida por el ComboBox
+     */
+    @Transactional(readOnly = true)
+    public List<LookupDTO> findCourses(String filter, int page, int pageSize) {
+        String pattern = SearchPatterns.contains(filter);
+        return courseLookupCache.get(pattern, page, pageSize,
+                () -> courseRepository.findLookups(pattern, PageRequest.of(page, pageSize)));
+    }
+
+    /*
+     * Busca profesores cuyo nombre contenga el filtro, ordenados por nombre
+     * @param filter texto ingresado en el ComboBox
+     * @param page, pageSize página pedida por el ComboBox
+     */
+    @Transactional(readOnly = true)
+    public List<LookupDTO> findProfessors(String filter, int page, int pageSize) {
+        return personRepository.findProfessorLookups(SearchPatterns.contains(filter), PageRequest.of(page, pageSize));
+    }
+}
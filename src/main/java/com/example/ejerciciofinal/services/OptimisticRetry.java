@@ -0,0 +1,52 @@
+package com.example.ejerciciofinal.services;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Ejecuta una operación en su propia transacción y la reintenta si otra transacción modificó
+ * las mismas entidades (@Version) entre la lectura y la escritura
+ * Cada intento vuelve a leer el estado confirmado, por lo que la operación debe calcular sus cambios
+ * a partir de lo que lee y no de valores obtenidos antes
+ */
+final class OptimisticRetry {
+
+    private static final Logger log = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    static final int MAX_ATTEMPTS = 3;
+
+    private OptimisticRetry() {
+    }
+
+    /**
+     * @param conflictMessage mensaje de la EditConflictException si se agotan los intentos
+     */
+    static <T> T execute(TransactionTemplate transactionTemplate, String conflictMessage, Supplier<T> operation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> operation.get());
+            } catch (OptimisticLockingFailureException ex) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw new EditConflictException(conflictMessage);
+                }
+                log.debug("Conflicto de versión, reintento {} de {}: {}", attempt, MAX_ATTEMPTS - 1, ex.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    // Espera corta y aleatoria para que los reintentos concurrentes no vuelvan a chocar
+    private static void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(5, 20L * attempt + 5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new EditConflictException("La operación fue interrumpida, vuelva a intentarlo");
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.ejerciciofinal.services;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache de la cantidad de filas de una tabla, usada por los callbacks de conteo de los Grid
+ *
+ * El valor se calcula una vez y luego se ajusta con las altas/bajas hechas por los servicios
+ * (al confirmar la transacción). Pasado el ttl se vuelve a calcular, lo que también corrige
+ * altas/bajas hechas por otros nodos
+ * Si la estimación del planificador de PostgreSQL (pg_class.reltuples) supera estimate-threshold
+ * se usa la estimación en lugar de un count(*) exacto
+ *
+ * Métrica: grid.row.count.cache{table, result=hit|exact|estimate}
+ */
+@Component
+public class RowCountCache {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Duration ttl;
+    private final long estimateThreshold;
+
+    private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+
+    public RowCountCache(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+            @Value("${app.count-cache.ttl:PT5M}") Duration ttl,
+            @Value("${app.count-cache.estimate-threshold:1000000}") long estimateThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.estimateThreshold = estimateThreshold;
+    }
+
+    /**
+     * Obtiene la cantidad de filas de la tabla, desde la cache si todavía es válida
+     * @param table nombre de la tabla (también se usa para la estimación del planificador)
+     * @param exactCount conteo exacto a usar cuando la tabla no supera el umbral de estimación
+     */
+    public long get(String table, LongSupplier exactCount) {
+        CachedCount cached = counts.get(table);
+        if (cached != null && !cached.isExpired(ttl)) {
+            counter(table, "hit").increment();
+            return cached.value;
+        }
+
+        long estimate = estimateThreshold > 0 ? estimate(table) : -1;
+        long value;
+        if (estimate >= estimateThreshold && estimateThreshold > 0) {
+            counter(table, "estimate").increment();
+            value = estimate;
+        } else {
+            counter(table, "exact").increment();
+            value = exactCount.getAsLong();
+        }
+        counts.put(table, new CachedCount(value, System.nanoTime()));
+        return value;
+    }
+
+    /**
+     * Ajusta la cantidad cacheada cuando se confirma la transacción actual
+     * (o inmediatamente si no hay transacción), para no contar altas que luego se revierten
+     * @param delta positivo para altas, negativo para bajas
+     */
+    public void adjustAfterCommit(String table, long delta) {
+        AfterCommit.run(() -> adjust(table, delta));
+    }
+
+    /**
+     * Descarta el valor cacheado, el próximo get lo vuelve a calcular
+     */
+    public void invalidate(String table) {
+        counts.remove(table);
+    }
+
+    private void adjust(String table, long delta) {
+        counts.computeIfPresent(table, (key, cached) -> new CachedCount(Math.max(0, cached.value + delta), cached.loadedAt));
+    }
+
+    private long estimate(String table) {
+        Long reltuples = jdbcTemplate.queryForObject(
+                "SELECT coalesce(max(reltuples), -1)::bigint FROM pg_class WHERE oid = to_regclass(?)",
+                Long.class, table);
+        return reltuples != null ? reltuples : -1;
+    }
+
+    private Counter counter(String table, String result) {
+        return Counter.builder("grid.row.count.cache")
+                .description("Consultas de cantidad de filas de los Grid según su origen")
+                .tag("table", table)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record CachedCount(long value, long loadedAt) {
+        boolean isExpired(Duration ttl) {
+            return System.nanoTime() - loadedAt > ttl.toNanos();
+        }
+    }
+}
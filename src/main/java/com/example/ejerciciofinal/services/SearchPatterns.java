@@ -0,0 +1,19 @@
+package com.example.ejerciciofinal.services;
+
+/**
+ * Arma los patrones LIKE/ILIKE de las búsquedas a partir del texto ingresado en un ComboBox
+ */
+final class SearchPatterns {
+
+    private SearchPatterns() {
+    }
+
+    /**
+     * Patrón "contiene" con los comodines de LIKE escapados, para que el texto se busque literalmente
+     * @param filter texto ingresado, null o vacío coincide con todo
+     */
+    static String contains(String filter) {
+        String text = filter == null ? "" : filter.trim();
+        return "%" + text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
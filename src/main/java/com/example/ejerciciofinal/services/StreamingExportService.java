@@ -0,0 +1,269 @@
+package com.example.ejerciciofinal.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Exportación completa de los listados de administración a CSV o XLSX
+ * Las filas se leen con un cursor JDBC de solo avance (fetch size fijo) y se escriben directo en la salida,
+ * sin entidades ni data provider del Grid: la memoria usada no depende de la cantidad de filas
+ * (el XLSX usa SXSSF, que solo mantiene en memoria una ventana de filas y vuelca el resto a disco)
+ */
+@Service
+public class StreamingExportService {
+
+    // Filas del XLSX que SXSSF mantiene en memoria antes de volcarlas al archivo temporal
+    private static final int XLSX_WINDOW_SIZE = 100;
+    // Ancho máximo de columna en Excel, en caracteres
+    private static final int MAX_COLUMN_WIDTH = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    public StreamingExportService(JdbcTemplate jdbcTemplate,
+            @Value("${app.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Nombre del archivo con timestamp (Usuarios_yyyyMMdd_HHmmss.csv)
+     */
+    public String fileName(ExportReport report, ExportFormat format) {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        return report.getFileNamePrefix() + "_" + timestamp + "." + format.getExtension();
+    }
+
+    /**
+     * Escribe el listado completo en la salida (que no se cierra)
+     * La transacción de solo lectura es necesaria para que el driver de PostgreSQL use un cursor
+     * y traiga las filas de a fetchSize en lugar de cargar todo el resultado
+     * @param progress recibe la cantidad de filas escritas cada fetchSize filas (puede lanzar una
+     * excepción no chequeada para interrumpir la exportación), null si no se necesita
+     * @return cantidad de filas exportadas
+     */
+    @Transactional(readOnly = true)
+    public long export(ExportReport report, ExportFormat format, OutputStream output, LongConsumer progress)
+            throws IOException {
+        RowSink sink = format == ExportFormat.CSV ? new CsvSink(output) : new XlsxSink(output, report.getTitle());
+        List<ExportReport.Column> columns = report.getColumns();
+        long[] rows = {0};
+        try {
+            sink.header(columns.stream().map(ExportReport.Column::header).toList());
+            Object[] values = new Object[columns.size()];
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(report.getSql(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, (RowCallbackHandler) rs -> {
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = columns.get(i).reader().read(rs);
+                }
+                try {
+                    sink.row(values);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+                if (progress != null && rows[0] % fetchSize == 0) {
+                    progress.accept(rows[0]);
+                }
+            });
+            sink.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            sink.close();
+        }
+        return rows[0];
+    }
+
+    /**
+     * Destino de las filas exportadas
+     */
+    private interface RowSink {
+        void header(List<String> headers) throws IOException;
+
+        void row(Object[] values) throws IOException;
+
+        void finish() throws IOException;
+
+        void close();
+    }
+
+    /**
+     * CSV en UTF-8 con todos los valores entre comillas
+     */
+    private static final class CsvSink implements RowSink {
+
+        private final Writer writer;
+
+        CsvSink(OutputStream output) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void header(List<String> headers) throws IOException {
+            row(headers.toArray());
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                String value = values[i] != null ? values[i].toString() : "";
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() {
+            // La salida la cierra quien la abrió
+        }
+    }
+
+    /**
+     * XLSX con título, encabezado en negrita y ancho de columnas ajustado al contenido
+     * El ancho se calcula con el largo máximo visto en cada columna, ya que SXSSF no puede
+     * auto-ajustar sobre filas que ya volcó a disco
+     * Si se supera el máximo de filas de una hoja, continúa en una hoja nueva con el mismo encabezado
+     */
+    private static final class XlsxSink implements RowSink {
+
+        private final OutputStream output;
+        private final String title;
+        private final SXSSFWorkbook workbook = new SXSSFWorkbook(XLSX_WINDOW_SIZE);
+        private final CellStyle titleStyle;
+        private final CellStyle headerStyle;
+
+        private List<String> headers;
+        private int[] widths;
+        private SXSSFSheet sheet;
+        private int rowIndex;
+
+        XlsxSink(OutputStream output, String title) {
+            this.output = output;
+            this.title = title;
+            workbook.setCompressTempFiles(true);
+
+            Font titleFont = workbook.createFont();
+            titleFont.setBold(true);
+            titleFont.setFontHeightInPoints((short) 14);
+            titleStyle = workbook.createCellStyle();
+            titleStyle.setFont(titleFont);
+
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle = workbook.createCellStyle();
+            headerStyle.setFont(headerFont);
+        }
+
+        @Override
+        public void header(List<String> headers) {
+            this.headers = headers;
+            this.widths = new int[headers.size()];
+            newSheet();
+        }
+
+        @Override
+        public void row(Object[] values) {
+            if (rowIndex >= SpreadsheetVersion.EXCEL2007.getMaxRows()) {
+                applyWidths();
+                newSheet();
+            }
+            Row row = sheet.createRow(rowIndex++);
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                if (value instanceof Number number) {
+                    row.createCell(i).setCellValue(number.doubleValue());
+                } else if (value != null) {
+                    row.createCell(i).setCellValue(value.toString());
+                }
+                track(i, value);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            applyWidths();
+            workbook.write(output);
+            output.flush();
+        }
+
+        @Override
+        public void close() {
+            try {
+                workbook.close();
+            } catch (IOException e) {
+                // El archivo ya se escribió (o falló antes), no hay nada más que hacer
+            }
+            // Borra los archivos temporales de las filas volcadas a disco
+            workbook.dispose();
+        }
+
+        private void newSheet() {
+            int number = workbook.getNumberOfSheets() + 1;
+            sheet = workbook.createSheet(number == 1 ? "Datos" : "Datos " + number);
+            rowIndex = 0;
+
+            Row titleRow = sheet.createRow(rowIndex++);
+            titleRow.createCell(0).setCellValue(title);
+            titleRow.getCell(0).setCellStyle(titleStyle);
+
+            Row headerRow = sheet.createRow(rowIndex++);
+            for (int i = 0; i < headers.size(); i++) {
+                headerRow.createCell(i).setCellValue(headers.get(i));
+                headerRow.getCell(i).setCellStyle(headerStyle);
+                track(i, headers.get(i));
+            }
+        }
+
+        private void track(int column, Object value) {
+            int length = value != null ? value.toString().length() : 0;
+            if (length > widths[column]) {
+                widths[column] = Math.min(length, MAX_COLUMN_WIDTH);
+            }
+        }
+
+        private void applyWidths() {
+            for (int i = 0; i < widths.length; i++) {
+                // Unidades de 1/256 de carácter, con un margen de dos caracteres
+                sheet.setColumnWidth(i, Math.min(widths[i] + 2, MAX_COLUMN_WIDTH) * 256);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.ejerciciofinal.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import com.example.ejerciciofinal.repository.StudentRepository;
+
+/**
+ * Resolución de estudiantes identificados por ID o por número de estudiante (UUID), como llegan en las
+ * listas y archivos de las operaciones masivas
+ */
+final class StudentIdentifiers {
+
+    // Máximo de parámetros por cláusula IN (PostgreSQL admite hasta 32767 por sentencia)
+    private static final int CHUNK_SIZE = 1000;
+
+    private StudentIdentifiers() {
+    }
+
+    /*
+     * Resuelve cada valor (ID numérico o número de estudiante) al ID del estudiante
+     * Una consulta por cada CHUNK_SIZE valores, los que no existen no quedan en el mapa
+     */
+    static Map<String, Long> resolve(StudentRepository studentRepository, List<String> values) {
+        Map<String, Long> idByValue = new HashMap<>();
+        Map<String, UUID> numberByValue = new HashMap<>();
+        for (String value : values) {
+            try {
+                idByValue.put(value, Long.parseLong(value));
+            } catch (NumberFormatException notAnId) {
+                try {
+                    numberByValue.put(value, UUID.fromString(value));
+                } catch (IllegalArgumentException notANumber) {
+                    // Ni ID ni número de estudiante: no se resuelve
+                }
+            }
+        }
+
+        Set<Long> existingIds = new HashSet<>();
+        Map<UUID, Long> idByNumber = new HashMap<>();
+        List<Long> ids = new ArrayList<>(new HashSet<>(idByValue.values()));
+        List<UUID> numbers = new ArrayList<>(new HashSet<>(numberByValue.values()));
+        for (int from = 0; from < Math.max(ids.size(), numbers.size()); from += CHUNK_SIZE) {
+            // Una lista vacía en un IN no es válida en SQL, se reemplaza por un valor que no existe
+            List<Long> idChunk = slice(ids, from, List.of(-1L));
+            List<UUID> numberChunk = slice(numbers, from, List.of(new UUID(0L, 0L)));
+            for (StudentRepository.IdentityRow row : studentRepository.findIdentities(idChunk, numberChunk)) {
+                existingIds.add(row.getId());
+                idByNumber.put(row.getStudentNumber(), row.getId());
+            }
+        }
+
+        Map<String, Long> resolved = new HashMap<>();
+        idByValue.forEach((value, id) -> {
+            if (existingIds.contains(id)) {
+                resolved.put(value, id);
+            }
+        });
+        numberByValue.forEach((value, number) -> {
+            Long id = idByNumber.get(number);
+            if (id != null) {
+                resolved.put(value, id);
+            }
+        });
+        return resolved;
+    }
+
+    private static <T> List<T> slice(List<T> list, int from, List<T> whenEmpty) {
+        if (from >= list.size()) {
+            return whenEmpty;
+        }
+        return list.subList(from, Math.min(from + CHUNK_SIZE, list.size()));
+    }
+}
@@ -0,0 +1,348 @@
+package com.example.ejerciciofinal.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.ejerciciofinal.dtos.StudentSearchDTO;
+import com.example.ejerciciofinal.model.Student;
+import com.example.ejerciciofinal.repository.StudentRepository;
+
+/**
+ * Índice en memoria para la búsqueda de estudiantes, compartido por todas las sesiones
+ *
+ * - La foto (Snapshot) es inmutable: ids, nombres y números de estudiante en arrays ordenados por nombre,
+ *   el texto de búsqueda de todos los estudiantes en un único char[] y un índice de trigramas
+ *   (trigrama -> filas que lo contienen)
+ * - Las altas y cambios de nombre posteriores se guardan en un overlay chico que tiene prioridad sobre la foto,
+ *   cuando supera rebuild-threshold la foto se vuelve a construir en segundo plano
+ * - Mientras se construye la primera foto isReady() devuelve false y UserService busca en la base
+ */
+@Component
+public class StudentSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(StudentSearchIndex.class);
+
+    private static final Comparator<Entry> BY_NAME = Comparator
+            .comparing(Entry::name, String.CASE_INSENSITIVE_ORDER)
+            .thenComparingLong(Entry::id);
+
+    // Separa nombre y número de estudiante en el texto de búsqueda, un filtro nunca lo contiene
+    private static final char FIELD_SEPARATOR = '\u0001';
+
+    private final StudentRepository studentRepository;
+    private final int rebuildThreshold;
+
+    private volatile Snapshot snapshot;
+    private volatile Map<Long, Entry> overlay = Map.of();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public StudentSearchIndex(StudentRepository studentRepository,
+            @Value("${app.student-search.rebuild-threshold:500}") int rebuildThreshold) {
+        this.studentRepository = studentRepository;
+        this.rebuildThreshold = rebuildThreshold;
+    }
+
+    /**
+     * Construye la primera foto en segundo plano para no demorar el arranque
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuildInBackground();
+    }
+
+    /**
+     * Reconstrucción periódica, incorpora los cambios hechos por otros nodos
+     */
+    @Scheduled(initialDelayString = "${app.student-search.refresh:PT30M}",
+            fixedDelayString = "${app.student-search.refresh:PT30M}")
+    public void refresh() {
+        rebuild();
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * Busca estudiantes cuyo nombre o número de estudiante contenga el filtro, o cuyo ID sea el filtro
+     * @return la página pedida, ordenada por nombre
+     */
+    public List<StudentSearchDTO> search(String filter, int offset, int limit) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new IllegalStateException("El índice de estudiantes todavía no está listo");
+        }
+        Map<Long, Entry> pending = overlay;
+
+        String text = filter == null ? "" : filter.trim().toLowerCase(Locale.ROOT);
+        long id = text.matches("\\d{1,18}") ? Long.parseLong(text) : -1L;
+        int wanted = offset + limit;
+
+        // Las primeras "wanted" coincidencias de la foto alcanzan: el overlay solo puede adelantar resultados
+        List<Entry> matches = new ArrayList<>();
+        for (int row : current.candidates(text)) {
+            if (matches.size() >= wanted) {
+                break;
+            }
+            if (!pending.containsKey(current.ids[row]) && current.contains(row, text)) {
+                matches.add(current.entry(row));
+            }
+        }
+        if (id >= 0) {
+            int row = current.rowOf(id);
+            if (row >= 0 && !pending.containsKey(id) && !current.contains(row, text)) {
+                matches.add(current.entry(row));
+            }
+        }
+        for (Entry entry : pending.values()) {
+            if (entry.id() == id || entry.matches(text)) {
+                matches.add(entry);
+            }
+        }
+
+        matches.sort(BY_NAME);
+        return matches.subList(Math.min(offset, matches.size()), Math.min(wanted, matches.size())).stream()
+                .map(Entry::toDTO)
+                .toList();
+    }
+
+    /**
+     * Agrega (o actualiza) el estudiante en el índice cuando se confirma la transacción actual
+     */
+    public void putAfterCommit(Student student) {
+        Entry entry = Entry.of(student.getId(), student.getName(), student.getStudentNumber());
+        AfterCommit.run(() -> put(entry));
+    }
+
+    private synchronized void put(Entry entry) {
+        Map<Long, Entry> updated = new HashMap<>(overlay);
+        updated.put(entry.id(), entry);
+        overlay = Map.copyOf(updated);
+
+        if (updated.size() > rebuildThreshold) {
+            rebuildInBackground();
+        }
+    }
+
+    /**
+     * Reconstruye la foto en segundo plano, por ejemplo después de altas masivas que no pasan por putAfterCommit
+     */
+    void rebuildInBackground() {
+        Thread.ofVirtual().name("student-search-index").start(this::rebuild);
+    }
+
+    private void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            // Lo que ya estaba en el overlay queda confirmado en la base y entra en la nueva foto
+            Map<Long, Entry> included = overlay;
+
+            List<Entry> entries = new ArrayList<>();
+            for (StudentSearchDTO student : studentRepository.findAllStudentsForSearch()) {
+                entries.add(Entry.of(student.getId(), student.getName(), UUID.fromString(student.getStudentNumber())));
+            }
+            Snapshot built = Snapshot.build(entries);
+
+            synchronized (this) {
+                snapshot = built;
+                Map<Long, Entry> remaining = new HashMap<>(overlay);
+                included.forEach(remaining::remove);
+                overlay = Map.copyOf(remaining);
+            }
+            log.info("Índice de búsqueda de estudiantes: {} estudiantes en {} ms", entries.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("No se pudo construir el índice de búsqueda de estudiantes", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private record Entry(long id, String name, long numberHi, long numberLo, String key) {
+
+        static Entry of(long id, String name, UUID studentNumber) {
+            String key = name.toLowerCase(Locale.ROOT) + FIELD_SEPARATOR + studentNumber;
+            return new Entry(id, name, studentNumber.getMostSignificantBits(),
+                    studentNumber.getLeastSignificantBits(), key);
+        }
+
+        boolean matches(String text) {
+            return key.contains(text);
+        }
+
+        StudentSearchDTO toDTO() {
+            return new StudentSearchDTO(id, name, new UUID(numberHi, numberLo).toString());
+        }
+    }
+
+    /**
+     * Foto inmutable del índice, las filas están ordenadas por nombre
+     */
+    private static final class Snapshot {
+
+        private final long[] ids;
+        private final String[] names;
+        private final long[] numberHi;
+        private final long[] numberLo;
+        // Texto de búsqueda de la fila i: keys[keyOffsets[i] .. keyOffsets[i + 1])
+        private final char[] keys;
+        private final int[] keyOffsets;
+        private final Map<Long, int[]> trigrams;
+        private final int[] allRows;
+        // Los ids en orden creciente y la fila de cada uno, para buscar por ID con búsqueda binaria
+        private final long[] sortedIds;
+        private final int[] rowsBySortedId;
+
+        private Snapshot(long[] ids, String[] names, long[] numberHi, long[] numberLo, char[] keys,
+                int[] keyOffsets, Map<Long, int[]> trigrams) {
+            this.ids = ids;
+            this.names = names;
+            this.numberHi = numberHi;
+            this.numberLo = numberLo;
+            this.keys = keys;
+            this.keyOffsets = keyOffsets;
+            this.trigrams = trigrams;
+            this.allRows = new int[ids.length];
+            Arrays.setAll(allRows, i -> i);
+
+            Integer[] byId = new Integer[ids.length];
+            Arrays.setAll(byId, i -> i);
+            Arrays.sort(byId, (a, b) -> Long.compare(ids[a], ids[b]));
+            this.sortedIds = new long[ids.length];
+            this.rowsBySortedId = new int[ids.length];
+            for (int i = 0; i < byId.length; i++) {
+                sortedIds[i] = ids[byId[i]];
+                rowsBySortedId[i] = byId[i];
+            }
+        }
+
+        static Snapshot build(List<Entry> entries) {
+            entries.sort(BY_NAME);
+            int size = entries.size();
+            long[] ids = new long[size];
+            String[] names = new String[size];
+            long[] numberHi = new long[size];
+            long[] numberLo = new long[size];
+            int[] keyOffsets = new int[size + 1];
+
+            StringBuilder keys = new StringBuilder();
+            Map<Long, IntList> postings = new HashMap<>();
+            Set<Long> rowTrigrams = new HashSet<>();
+            for (int row = 0; row < size; row++) {
+                Entry entry = entries.get(row);
+                ids[row] = entry.id();
+                names[row] = entry.name();
+                numberHi[row] = entry.numberHi();
+                numberLo[row] = entry.numberLo();
+                keyOffsets[row] = keys.length();
+                keys.append(entry.key());
+
+                rowTrigrams.clear();
+                String key = entry.key();
+                for (int i = 0; i + 3 <= key.length(); i++) {
+                    long trigram = trigram(key, i);
+                    if (rowTrigrams.add(trigram)) {
+                        postings.computeIfAbsent(trigram, t -> new IntList()).add(row);
+                    }
+                }
+            }
+            keyOffsets[size] = keys.length();
+
+            Map<Long, int[]> trigrams = new HashMap<>(postings.size() * 2);
+            postings.forEach((trigram, rows) -> trigrams.put(trigram, rows.toArray()));
+
+            char[] packedKeys = new char[keys.length()];
+            keys.getChars(0, keys.length(), packedKeys, 0);
+            return new Snapshot(ids, names, numberHi, numberLo, packedKeys, keyOffsets, trigrams);
+        }
+
+        /**
+         * Filas que pueden contener el texto, en orden de nombre
+         * Con 3 o más caracteres se usa la lista más corta de sus trigramas, si no todas las filas
+         */
+        int[] candidates(String text) {
+            if (text.length() < 3) {
+                return allRows;
+            }
+            int[] best = null;
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                int[] rows = trigrams.get(trigram(text, i));
+                if (rows == null) {
+                    return new int[0];
+                }
+                if (best == null || rows.length < best.length) {
+                    best = rows;
+                }
+            }
+            return best;
+        }
+
+        boolean contains(int row, String text) {
+            int start = keyOffsets[row];
+            int last = keyOffsets[row + 1] - text.length();
+            for (int i = start; i <= last; i++) {
+                int j = 0;
+                while (j < text.length() && keys[i + j] == text.charAt(j)) {
+                    j++;
+                }
+                if (j == text.length()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int rowOf(long id) {
+            int index = Arrays.binarySearch(sortedIds, id);
+            return index >= 0 ? rowsBySortedId[index] : -1;
+        }
+
+        Entry entry(int row) {
+            return new Entry(ids[row], names[row], numberHi[row], numberLo[row], null);
+        }
+
+        private static long trigram(String text, int start) {
+            return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+        }
+    }
+
+    /**
+     * Lista de int sin boxing, solo para construir los postings
+     */
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
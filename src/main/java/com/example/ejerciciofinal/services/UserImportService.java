@@ -0,0 +1,495 @@
+package com.example.ejerciciofinal.services;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ejerciciofinal.dtos.UserImportResultDTO;
+import com.example.ejerciciofinal.dtos.UserImportResultDTO.RejectedRow;
+import com.example.ejerciciofinal.model.Role;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Importación masiva de usuarios desde un archivo CSV o TSV (separador detectado en el encabezado)
+ * Lee el archivo por bloques de CHUNK_SIZE filas, sin cargarlo entero en memoria. Por cada bloque:
+ * - una consulta para los userName y otra para los email que ya existen en la base
+ * - IDs reservados de una vez de las secuencias de las columnas identity (nextval con generate_series)
+ * - inserts en batch por JDBC, sin pasar por el contexto de persistencia de Hibernate
+ * Cada bloque se confirma en su propia transacción, un error no deshace los bloques anteriores
+ * Si el bloque choca con una restricción de la base después de revalidarlo, se guarda fila por fila
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    private static final int CHUNK_SIZE = 1000;
+
+    // Columnas reconocidas en el encabezado, el orden en el archivo es libre
+    private static final String COL_USERNAME = "username";
+    private static final String COL_PASSWORD = "password";
+    private static final String COL_ROLE = "role";
+    private static final String COL_NAME = "name";
+    private static final String COL_PHONE = "phone";
+    private static final String COL_EMAIL = "email";
+    private static final String COL_STREET = "street";
+    private static final String COL_CITY = "city";
+    private static final String COL_STATE = "state";
+    private static final String COL_COUNTRY = "country";
+    private static final String COL_SALARY = "salary";
+
+    private static final String PERSONS_TABLE = "persons";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RowCountCache rowCountCache;
+
+    @Autowired
+    private StudentSearchIndex studentSearchIndex;
+
+    /*
+     * Importa los usuarios del archivo
+     * Encabezado obligatorio con al menos username, password y role; name, phone y email son obligatorios
+     * para STUDENT y PROFESSOR; la dirección (street, city, state, country) es opcional pero completa;
+     * salary es obligatorio para PROFESSOR
+     * @param input contenido del archivo en UTF-8, no se cierra
+     * @return cantidades importadas y rechazadas, con el reporte de filas rechazadas si hubo alguna
+     */
+    public UserImportResultDTO importUsers(InputStream input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("El archivo está vacío");
+        }
+        if (header.startsWith("\uFEFF")) {
+            // BOM que agregan algunas planillas al guardar en UTF-8
+            header = header.substring(1);
+        }
+        char delimiter = detectDelimiter(header);
+        Map<String, Integer> columns = parseHeader(header, delimiter);
+
+        UserImportResultDTO result = new UserImportResultDTO();
+        File report = File.createTempFile("usuarios-rechazados-", ".csv");
+        report.deleteOnExit();
+
+        // userName y email ya vistos en el archivo, para rechazar repetidos entre bloques distintos
+        Set<String> seenUserNames = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+
+        // Los bloques confirmados quedan aunque un bloque posterior falle, las caches se actualizan igual
+        try (BufferedWriter reportWriter = Files.newBufferedWriter(report.toPath(), StandardCharsets.UTF_8)) {
+            reportWriter.write("linea,motivo,contenido");
+            reportWriter.newLine();
+            Rejections rejections = new Rejections(result, reportWriter);
+
+            List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            String line;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    ImportRow row = toImportRow(lineNumber, line, parseLine(line, delimiter), columns);
+                    if (!seenUserNames.add(row.userName())) {
+                        throw new IllegalArgumentException("userName repetido en el archivo");
+                    }
+                    if (row.email() != null && !seenEmails.add(row.email())) {
+                        throw new IllegalArgumentException("email repetido en el archivo");
+                    }
+                    chunk.add(row);
+                } catch (IllegalArgumentException ex) {
+                    rejections.reject(lineNumber, ex.getMessage(), line);
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(chunk, result, rejections, true);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, result, rejections, true);
+            }
+        } finally {
+            afterImport(result);
+        }
+
+        if (result.getRejected() > 0) {
+            result.setRejectedReport(report);
+        } else {
+            Files.deleteIfExists(report.toPath());
+        }
+
+        log.info("Importación de usuarios: {} importados ({} estudiantes, {} profesores, {} administradores), {} rechazados",
+                result.getImported(), result.getStudents(), result.getProfessors(), result.getAdmins(),
+                result.getRejected());
+        return result;
+    }
+
+    /*
+     * Valida el bloque contra la base y lo inserta en una transacción
+     * Si otra alta confirmó el mismo userName o email entre la validación y el insert, se valida e intenta de nuevo
+     */
+    private void importChunk(List<ImportRow> chunk, UserImportResultDTO result, Rejections rejections,
+            boolean retryOnConflict) throws IOException {
+        Set<String> existingUserNames = findExisting("SELECT username FROM users WHERE username IN (:values)",
+                chunk.stream().map(ImportRow::userName).toList());
+        Set<String> existingEmails = findExisting("SELECT email FROM persons WHERE email IN (:values)",
+                chunk.stream().map(ImportRow::email).filter(email -> email != null).toList());
+
+        List<ImportRow> accepted = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (existingUserNames.contains(row.userName())) {
+                rejections.reject(row.line(), "El nombre de usuario ya existe", row.content());
+            } else if (row.email() != null && existingEmails.contains(row.email())) {
+                rejections.reject(row.line(), "El email ya está registrado", row.content());
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(accepted));
+        } catch (DataIntegrityViolationException ex) {
+            if (retryOnConflict) {
+                importChunk(accepted, result, rejections, false);
+            } else {
+                // El conflicto no se debe a una alta concurrente ya visible: se guarda fila por fila
+                // para rechazar solo las que fallan y no el bloque entero
+                importRowByRow(accepted, result, rejections);
+            }
+            return;
+        }
+
+        for (ImportRow row : accepted) {
+            countImported(row, result);
+        }
+    }
+
+    /*
+     * Inserta cada fila en su propia transacción, las que violan una restricción se rechazan con el motivo
+     */
+    private void importRowByRow(List<ImportRow> rows, UserImportResultDTO result, Rejections rejections)
+            throws IOException {
+        for (ImportRow row : rows) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(List.of(row)));
+                countImported(row, result);
+            } catch (DataIntegrityViolationException ex) {
+                rejections.reject(row.line(), "No se pudo guardar la fila: " + ex.getMostSpecificCause().getMessage(),
+                        row.content());
+            }
+        }
+    }
+
+    private static void countImported(ImportRow row, UserImportResultDTO result) {
+        switch (row.role()) {
+            case STUDENT -> result.setStudents(result.getStudents() + 1);
+            case PROFESSOR -> result.setProfessors(result.getProfessors() + 1);
+            case ADMIN -> result.setAdmins(result.getAdmins() + 1);
+        }
+    }
+
+    private Set<String> findExisting(String sql, List<String> values) {
+        if (values.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(sql, Map.of("values", values), String.class));
+    }
+
+    /*
+     * Inserta el bloque con un batch por tabla, los IDs se reservan antes para poder enlazar las filas
+     */
+    private void insert(List<ImportRow> rows) {
+        List<ImportRow> withPerson = rows.stream().filter(row -> row.role() != Role.ADMIN).toList();
+        List<ImportRow> withAddress = withPerson.stream().filter(ImportRow::hasAddress).toList();
+
+        List<Long> addressIds = reserveIds("addresses", withAddress.size());
+        List<Long> personIds = reserveIds(PERSONS_TABLE, withPerson.size());
+        List<Long> userIds = reserveIds("users", rows.size());
+
+        Map<ImportRow, Long> addressIdByRow = new HashMap<>();
+        List<Object[]> addresses = new ArrayList<>(withAddress.size());
+        for (int i = 0; i < withAddress.size(); i++) {
+            ImportRow row = withAddress.get(i);
+            addressIdByRow.put(row, addressIds.get(i));
+            addresses.add(new Object[] {addressIds.get(i), row.street(), row.city(), row.state(), row.country()});
+        }
+
+        Map<ImportRow, Long> personIdByRow = new HashMap<>();
+        List<Object[]> persons = new ArrayList<>(withPerson.size());
+        List<Object[]> students = new ArrayList<>();
+        List<Object[]> professors = new ArrayList<>();
+        for (int i = 0; i < withPerson.size(); i++) {
+            ImportRow row = withPerson.get(i);
+            Long personId = personIds.get(i);
+            personIdByRow.put(row, personId);
+            persons.add(new Object[] {personId, row.name(), row.phone(), row.email(), addressIdByRow.get(row)});
+            if (row.role() == Role.STUDENT) {
+                students.add(new Object[] {personId, UUID.randomUUID()});
+            } else {
+                professors.add(new Object[] {personId, row.salary()});
+            }
+        }
+
+        List<Object[]> users = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            ImportRow row = rows.get(i);
+            // Contraseña en texto plano como en UserService.createUser (en producción usar BCrypt)
+            users.add(new Object[] {userIds.get(i), row.userName(), row.password(), row.role().name(),
+                    personIdByRow.get(row)});
+        }
+
+        jdbcTemplate.batchUpdate("INSERT INTO addresses (id, street, city, state, country) VALUES (?, ?, ?, ?, ?)",
+                addresses);
+        jdbcTemplate.batchUpdate("INSERT INTO persons (id, name, phone, email, address_id, version) VALUES (?, ?, ?, ?, ?, 0)",
+                persons);
+        jdbcTemplate.batchUpdate("INSERT INTO students (id, student_number, avg_mark, mark_sum, graded_count) "
+                + "VALUES (?, ?, 0, 0, 0)", students);
+        jdbcTemplate.batchUpdate("INSERT INTO professors (id, salary) VALUES (?, ?)", professors);
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, username, password, role, person_id) VALUES (?, ?, ?, ?, ?)",
+                users);
+    }
+
+    /*
+     * Reserva count IDs de la secuencia de la columna identity de la tabla, en una sola consulta
+     * Las altas hechas por Hibernate siguen usando la misma secuencia, no hay colisiones
+     */
+    private List<Long> reserveIds(String table, int count) {
+        if (count == 0) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList(
+                "SELECT nextval(pg_get_serial_sequence(?, 'id')) FROM generate_series(1, ?)",
+                Long.class, table, count);
+    }
+
+    /*
+     * Los inserts por JDBC no pasan por Hibernate: se descartan las consultas cacheadas de profesores,
+     * el conteo de personas y se reconstruye el índice de búsqueda de estudiantes
+     */
+    private void afterImport(UserImportResultDTO result) {
+        if (result.getStudents() + result.getProfessors() == 0) {
+            return;
+        }
+        rowCountCache.invalidate(PERSONS_TABLE);
+        if (result.getProfessors() > 0) {
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegion("professor-list");
+        }
+        if (result.getStudents() > 0) {
+            studentSearchIndex.rebuildInBackground();
+        }
+    }
+
+    private static char detectDelimiter(String header) {
+        if (header.indexOf('\t') >= 0) {
+            return '\t';
+        }
+        return header.indexOf(';') >= 0 && header.indexOf(',') < 0 ? ';' : ',';
+    }
+
+    private static Map<String, Integer> parseHeader(String header, char delimiter) {
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = parseLine(header, delimiter);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of(COL_USERNAME, COL_PASSWORD, COL_ROLE)) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Falta la columna obligatoria '" + required + "' en el encabezado");
+            }
+        }
+        return columns;
+    }
+
+    /*
+     * Separa una línea en campos, admite campos entre comillas dobles con "" como comilla escapada
+     */
+    private static List<String> parseLine(String line, char delimiter) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Comillas sin cerrar");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static ImportRow toImportRow(int line, String content, List<String> fields, Map<String, Integer> columns) {
+        String userName = field(fields, columns, COL_USERNAME);
+        String password = field(fields, columns, COL_PASSWORD);
+        String roleName = field(fields, columns, COL_ROLE);
+        if (userName == null) {
+            throw new IllegalArgumentException("El userName no puede estar vacío");
+        }
+        if (password == null) {
+            throw new IllegalArgumentException("El password no puede estar vacío");
+        }
+        if (roleName == null) {
+            throw new IllegalArgumentException("El rol es obligatorio");
+        }
+        // Mismas reglas que el formulario de CreateUserView
+        if (userName.length() < 3) {
+            throw new IllegalArgumentException("El usuario debe tener al menos 3 caracteres");
+        }
+        if (password.length() < 6) {
+            throw new IllegalArgumentException("La contraseña debe tener al menos 6 caracteres");
+        }
+        Role role;
+        try {
+            role = Role.valueOf(roleName.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Rol desconocido: " + roleName);
+        }
+        if (role == Role.ADMIN) {
+            return new ImportRow(line, content, userName, password, role,
+                    null, null, null, null, null, null, null, null);
+        }
+
+        String name = field(fields, columns, COL_NAME);
+        String phone = field(fields, columns, COL_PHONE);
+        String email = field(fields, columns, COL_EMAIL);
+        if (name == null || phone == null || email == null) {
+            throw new IllegalArgumentException("name, phone y email son obligatorios para " + role.name());
+        }
+        if (!email.contains("@")) {
+            throw new IllegalArgumentException("Email inválido: " + email);
+        }
+
+        String street = field(fields, columns, COL_STREET);
+        String city = field(fields, columns, COL_CITY);
+        String state = field(fields, columns, COL_STATE);
+        String country = field(fields, columns, COL_COUNTRY);
+        int addressFields = (street != null ? 1 : 0) + (city != null ? 1 : 0) + (state != null ? 1 : 0)
+                + (country != null ? 1 : 0);
+        if (addressFields != 0 && addressFields != 4) {
+            throw new IllegalArgumentException("La dirección debe tener street, city, state y country, o quedar vacía");
+        }
+
+        Double salary = null;
+        if (role == Role.PROFESSOR) {
+            String salaryText = field(fields, columns, COL_SALARY);
+            try {
+                salary = salaryText != null ? Double.parseDouble(salaryText) : null;
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Salario inválido: " + salaryText);
+            }
+            if (salary == null || salary <= 0) {
+                throw new IllegalArgumentException("El salario debe ser mayor a 0");
+            }
+        }
+
+        return new ImportRow(line, content, userName, password, role, name, phone, email,
+                street, city, state, country, salary);
+    }
+
+    /*
+     * Valor de la columna sin espacios alrededor, null si la columna no está o está vacía
+     */
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Fila válida del archivo, pendiente de validar contra la base
+     * Se compara por identidad (un Map por fila del bloque), no por contenido
+     */
+    private record ImportRow(int line, String content, String userName, String password, Role role,
+            String name, String phone, String email,
+            String street, String city, String state, String country, Double salary) {
+
+        boolean hasAddress() {
+            return street != null;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+
+    /**
+     * Registra las filas rechazadas en el resultado y en el reporte CSV
+     */
+    private record Rejections(UserImportResultDTO result, BufferedWriter writer) {
+
+        void reject(int line, String reason, String content) throws IOException {
+            result.addRejected(new RejectedRow(line, reason, content));
+            writer.write(line + "," + quote(reason) + "," + quote(content));
+            writer.newLine();
+        }
+
+        private static String quote(String value) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+    }
+}
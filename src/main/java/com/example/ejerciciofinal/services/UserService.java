@@ -4,10 +4,8 @@ import java.util.HashSet;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,7 +16,6 @@ import com.example.ejerciciofinal.dtos.CreateUserDTO.ProfessorDTO;
 import com.example.ejerciciofinal.dtos.CreateUserDTO.StudentDTO;
 import com.example.ejerciciofinal.dtos.ResponseUserDTO;
 import com.example.ejerciciofinal.dtos.StudentSearchDTO;
-import com.example.ejerciciofinal.mappers.DTOMapper;
 import com.example.ejerciciofinal.model.Address;
 import com.example.ejerciciofinal.model.Person;
 import com.example.ejerciciofinal.model.Professor;
@@ -44,6 +41,14 @@ public class UserService {
     @Autowired
     private ProfessorRepository professorRepository;
 
+    @Autowired
+    private RowCountCache rowCountCache;
+
+    @Autowired
+    private StudentSearchIndex studentSearchIndex;
+
+    private static final String PERSONS_TABLE = "persons";
+
     @Transactional
     public ResponseUserDTO createUser(CreateUserDTO userDTO) {
 
@@ -75,6 +80,13 @@ public class UserService {
 
         User savedUser = userRepository.save(user);
 
+        if (person != null) {
+            rowCountCache.adjustAfterCommit(PERSONS_TABLE, 1);
+        }
+        if (person instanceof Student student) {
+            studentSearchIndex.putAfterCommit(student);
+        }
+
         return new ResponseUserDTO(
                 savedUser.getUserName(),
                 savedUser.getRole(),
@@ -145,41 +157,61 @@ public class UserService {
         return userRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("No se encontró el usuario con ID: " + id)).getPerson();
     }
 
-    public List<ProfessorDTO> getAllProfessors() {
-        return DTOMapper.toProfessorDTO(personRepository.findAllProfessors());
+    /**
+     * Obtiene la página de personas siguiente a lastId (paginación por clave, orden por id)
+     *
+     * @param lastId Id de la última persona de la página anterior (0 para la primera página)
+     * @param pageSize Cantidad de registros por página
+     * @return Lista de Person con id mayor a lastId
+     */
+    @Transactional(readOnly = true)
+    public List<Person> findPersonsAfter(long lastId, int pageSize) {
+        return personRepository.findPageAfter(lastId, Limit.of(pageSize));
     }
 
     /**
-     * Obtiene todos los usuarios de tipo Person paginados
+     * Obtiene el id de la persona en la posición offset (orden por id)
      *
-     * @param pageIndex Índice de la página (comienza en 0)
-     * @param pageSize Cantidad de registros por página
-     * @return Page<Person> con los usuarios paginados
+     * @param offset Posición de la persona (comienza en 0)
+     * @return Id de la persona, null si no hay tantas personas
      */
     @Transactional(readOnly = true)
-    public Page<Person> findAllPersonsPaginated(int pageIndex, int pageSize) {
-        Pageable pageable = PageRequest.of(pageIndex, pageSize, Sort.by("id").ascending());
-        return personRepository.findAll(pageable);
+    public Long findPersonIdAtOffset(int offset) {
+        return personRepository.findIdsOrderedById(PageRequest.of(offset, 1)).stream()
+                .findFirst()
+                .orElse(null);
     }
 
     /**
      * Cuenta el total de personas registradas
+     * Se toma de RowCountCache, solo consulta la base cuando la cache expiró
      *
      * @return Total de registros Person
      */
-    @Transactional(readOnly = true)
     public long countPersons() {
-        return personRepository.count();
+        return rowCountCache.get(PERSONS_TABLE, personRepository::count);
     }
 
     /*
-     * Obtiene todosl os estudiantes para búsqueda (solo id, nombre y número de estudiante)
-     * query optimizada que no trae todos los campos student
+     * Busca estudiantes por nombre, número de estudiante (contiene) o ID (exacto)
+     * Pensado para el callback lazy de los ComboBox: solo trae la página pedida
+     * Usa el índice en memoria compartido (StudentSearchIndex), mientras se construye busca en la base
+     * @param filter texto ingresado (vacío trae todos, ordenados por nombre)
+     * @param offset, limit página pedida por el ComboBox
      * @return Lista de StudentSearchDTO con 3 campos, id, name, studentNumber
      */
-    @Transactional(readOnly = true)
-    public List<StudentSearchDTO> getAllStudentsForSearch() {
-        return studentRepository.findAllStudentsForSearch();
+    public List<StudentSearchDTO> searchStudents(String filter, int offset, int limit) {
+        if (studentSearchIndex.isReady()) {
+            return studentSearchIndex.search(filter, offset, limit);
+        }
+
+        String text = filter == null ? "" : filter.trim();
+        String pattern = SearchPatterns.contains(text);
+        long id = text.matches("\\d{1,18}") ? Long.parseLong(text) : -1L;
+
+        return studentRepository.searchStudents(pattern, id, offset, limit).stream()
+                .map(row -> new StudentSearchDTO(row.getId(), row.getName(), row.getStudentNumber()))
+                .toList();
     }
 
     /*
@@ -194,32 +226,6 @@ public class UserService {
                 );
     }
 
-    /**
-     * Obtiene un estudiante por su userId (del User asociado)
-     * @param userId ID del User
-     * @return Student asociado al User
-     */
-    @Transactional(readOnly = true)
-    public Student getStudentByUserId(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("No se encontró el usuario con ID: " + userId));
-        
-        Person person = user.getPerson();
-        
-        if (person == null) {
-            throw new IllegalArgumentException("El usuario no tiene una persona asociada");
-        }
-        
-        // Usar el ID de Person para buscar en StudentRepository
-        // Esto evita problemas con proxies de Hibernate
-        Long personId = person.getId();
-        
-        return studentRepository.findById(personId)
-                .orElseThrow(() -> new IllegalArgumentException(
-                    "La persona asociada al usuario no es un estudiante (ID: " + personId + ")"
-                ));
-    }
-
     /*
      * Chequea la condición de que un estudiante puede inscribirse a un curso
      * @param studentId ID del estudiante, courseId ID del curso
@@ -244,36 +250,11 @@ public class UserService {
                 .orElseThrow(() -> new IllegalArgumentException("No se encontró el profesor con ID: " + id));
     }
 
-    /**
-     * Obtiene un profesor por su userId (del User asociado)
-     * @param userId ID del User
-     * @return Professor asociado al User
-     */
-    @Transactional(readOnly = true)
-    public Professor getProfessorByUserId(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("No se encontró el usuario con ID: " + userId));
-        
-        Person person = user.getPerson();
-        
-        if (person == null) {
-            throw new IllegalArgumentException("El usuario no tiene una persona asociada");
-        }
-        
-        // Usar el ID de Person para buscar en StudentRepository
-        // Esto evita problemas con proxies de Hibernate
-        Long personId = person.getId();
-        
-        return professorRepository.findById(personId)
-                .orElseThrow(() -> new IllegalArgumentException(
-                    "La persona asociada al usuario no es un estudiante (ID: " + personId + ")"
-                ));
-    }
-
     /**
      * Actualiza los datos de Person y Address
      * Funciona tanto para Student como para Professor
      * @param person Objeto Person con los datos actualizados (incluye Address)
+     * @throws EditConflictException si la persona se modificó después de leer person
      */
     @Transactional
     public void updatePersonData(Person person) {
@@ -288,6 +269,12 @@ public class UserService {
         // Validar que el email no esté duplicado (excepto para el mismo usuario)
         Person existingPerson = personRepository.findById(person.getId())
                 .orElseThrow(() -> new IllegalArgumentException("No se encontró la persona con ID: " + person.getId()));
+
+        // El formulario se armó con una versión de la persona: si otro usuario la guardó después, no se pisa
+        if (person.getVersion() != null && !person.getVersion().equals(existingPerson.getVersion())) {
+            throw new EditConflictException("Otro usuario modificó estos datos desde que se abrió el formulario, "
+                    + "vuelva a abrirlo para ver los valores actuales");
+        }
         
         // Verificar si el email cambió y si está duplicado
         if (!existingPerson.getEmail().equals(person.getEmail())) {
@@ -311,6 +298,11 @@ public class UserService {
         
         // Guardar cambios (cascade ALL ya persiste Address automáticamente)
         personRepository.save(existingPerson);
+
+        // El nombre es parte de la búsqueda de estudiantes
+        if (existingPerson instanceof Student student) {
+            studentSearchIndex.putAfterCommit(student);
+        }
     }
 
     
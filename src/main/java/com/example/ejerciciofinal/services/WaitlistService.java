@@ -0,0 +1,280 @@
+package com.example.ejerciciofinal.services;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ejerciciofinal.model.Course;
+import com.example.ejerciciofinal.model.Seat;
+import com.example.ejerciciofinal.model.WaitlistEntry;
+import com.example.ejerciciofinal.repository.CourseRepository;
+import com.example.ejerciciofinal.repository.SeatRepository;
+import com.example.ejerciciofinal.repository.StudentRepository;
+import com.example.ejerciciofinal.repository.WaitlistRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Lista de espera de los cursos llenos y promoción automática cuando se libera un lugar
+ *
+ * Quien libera lugares (desinscripción, inscripción masiva) avisa con signalAfterCommit. Un único hilo
+ * procesa los cursos avisados: en cada lote bloquea la fila del curso, toma hasta batch-size entradas en orden
+ * de llegada (tantas como lugares libres), las inscribe en batch y las saca de la lista, todo en una transacción.
+ * Con el curso bloqueado ninguna otra inscripción puede quedarse con esos lugares, así que el orden de la lista se respeta.
+ * Cada sweep-interval se vuelven a avisar todos los cursos con lista de espera, por si un aviso se perdió
+ * (reinicio, cambios hechos por otro nodo)
+ *
+ * Métricas: waitlist.depth (estudiantes esperando), waitlist.pending.courses (cursos avisados sin procesar),
+ * waitlist.enqueued, waitlist.promoted, waitlist.promotion.batch (duración) y waitlist.promotion.batch.size
+ */
+@Service
+public class WaitlistService {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistService.class);
+
+    private final WaitlistRepository waitlistRepository;
+    private final CourseRepository courseRepository;
+    private final SeatRepository seatRepository;
+    private final StudentRepository studentRepository;
+    private final CourseLockManager courseLockManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final BlockingQueue<Long> signaledCourses = new LinkedBlockingQueue<>();
+    private final Set<Long> pendingCourses = ConcurrentHashMap.newKeySet();
+    private final AtomicLong depth = new AtomicLong();
+    private volatile Thread worker;
+
+    private final Counter enqueuedCounter;
+    private final Counter promotedCounter;
+    private final Timer batchTimer;
+    private final DistributionSummary batchSizeSummary;
+
+    public WaitlistService(WaitlistRepository waitlistRepository, CourseRepository courseRepository,
+            SeatRepository seatRepository, StudentRepository studentRepository,
+            CourseLockManager courseLockManager, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+            @Value("${app.waitlist.batch-size:50}") int batchSize) {
+        this.waitlistRepository = waitlistRepository;
+        this.courseRepository = courseRepository;
+        this.seatRepository = seatRepository;
+        this.studentRepository = studentRepository;
+        this.courseLockManager = courseLockManager;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+
+        Gauge.builder("waitlist.depth", depth, AtomicLong::get)
+                .description("Estudiantes en listas de espera")
+                .register(meterRegistry);
+        Gauge.builder("waitlist.pending.courses", pendingCourses, Set::size)
+                .description("Cursos con lugares liberados esperando la promoción")
+                .register(meterRegistry);
+        enqueuedCounter = Counter.builder("waitlist.enqueued")
+                .description("Estudiantes anotados en una lista de espera")
+                .register(meterRegistry);
+        promotedCounter = Counter.builder("waitlist.promoted")
+                .description("Estudiantes inscritos desde una lista de espera")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("waitlist.promotion.batch")
+                .description("Duración de cada lote de promoción")
+                .register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder("waitlist.promotion.batch.size")
+                .description("Entradas procesadas por lote de promoción")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        worker = Thread.ofPlatform().name("waitlist-promoter").daemon(true).start(this::processSignals);
+        signalAllWaiting();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Anota a los estudiantes al final de la lista de espera del curso, en el orden recibido y en la transacción actual
+     * Quien la llama debe tener bloqueada la fila del curso (CourseRepository.lockAvailableSeats), así ninguna
+     * otra entrada se intercala y las posiciones calculadas son las definitivas
+     * @return posición en la lista (comienza en 1) de cada estudiante anotado; los que ya estaban esperando no aparecen
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Long> enqueueAll(Long courseId, List<Long> studentIds) {
+        if (studentIds.isEmpty()) {
+            return Map.of();
+        }
+        Set<Long> alreadyWaiting = new HashSet<>(waitlistRepository.findWaitingStudentIds(courseId, studentIds));
+
+        Course course = courseRepository.getReferenceById(courseId);
+        LocalDateTime now = LocalDateTime.now();
+        List<WaitlistEntry> entries = new ArrayList<>();
+        for (Long studentId : new LinkedHashSet<>(studentIds)) {
+            if (!alreadyWaiting.contains(studentId)) {
+                entries.add(new WaitlistEntry(course, studentRepository.getReferenceById(studentId), now));
+            }
+        }
+        if (entries.isEmpty()) {
+            return Map.of();
+        }
+        waitlistRepository.saveAllAndFlush(entries);
+
+        // Con el curso bloqueado las entradas nuevas quedan seguidas al final de la lista
+        long firstPosition = waitlistRepository.findPosition(courseId, entries.get(0).getId());
+        Map<Long, Long> positions = new LinkedHashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            positions.put(entries.get(i).getStudent().getId(), firstPosition + i);
+        }
+
+        AfterCommit.run(() -> {
+            depth.addAndGet(entries.size());
+            enqueuedCounter.increment(entries.size());
+        });
+        // Un lugar puede haberse liberado mientras tanto: el promotor lo verifica después del commit
+        signalAfterCommit(courseId);
+        return positions;
+    }
+
+    /**
+     * Si hay estudiantes esperando un lugar en el curso
+     */
+    @Transactional(readOnly = true)
+    public boolean hasWaiting(Long courseId) {
+        return waitlistRepository.existsByCourseId(courseId);
+    }
+
+    /**
+     * Avisa al promotor que el curso puede tener lugares libres, cuando se confirme la transacción actual
+     */
+    public void signalAfterCommit(Long courseId) {
+        AfterCommit.run(() -> signal(courseId));
+    }
+
+    /**
+     * Vuelve a avisar todos los cursos con lista de espera y corrige waitlist.depth
+     */
+    @Scheduled(fixedDelayString = "${app.waitlist.sweep-interval:PT1M}",
+            initialDelayString = "${app.waitlist.sweep-interval:PT1M}")
+    public void signalAllWaiting() {
+        depth.set(waitlistRepository.count());
+        waitlistRepository.findCourseIdsWithEntries().forEach(this::signal);
+    }
+
+    private void signal(Long courseId) {
+        // Un curso se encola una sola vez aunque se libere más de un lugar antes de procesarlo
+        if (pendingCourses.add(courseId)) {
+            signaledCourses.offer(courseId);
+        }
+    }
+
+    private void processSignals() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Long courseId;
+            try {
+                courseId = signaledCourses.take();
+            } catch (InterruptedException ex) {
+                return;
+            }
+            pendingCourses.remove(courseId);
+            try {
+                if (promoteBatch(courseId)) {
+                    // Se tomaron todas las entradas pedidas: puede haber más lugares y más estudiantes esperando
+                    signal(courseId);
+                }
+            } catch (RuntimeException ex) {
+                // El próximo sweep vuelve a intentar con este curso
+                log.warn("Error al promover la lista de espera del curso {}", courseId, ex);
+            }
+        }
+    }
+
+    /**
+     * Inscribe a los primeros de la lista de espera del curso, hasta completar los lugares libres o el lote
+     * @return true si se tomaron todas las entradas pedidas (puede quedar gente esperando y lugares libres)
+     */
+    private boolean promoteBatch(Long courseId) {
+        long start = System.nanoTime();
+        // El lote espera su turno con las demás operaciones del curso antes de abrir la transacción
+        BatchResult result = courseLockManager.withCourseLock(courseId, () -> transactionTemplate.execute(status -> {
+            // Bloquea la fila del curso: las inscripciones individuales y masivas esperan a que termine el lote
+            int available = courseRepository.lockAvailableSeats(courseId).orElse(0);
+            if (available <= 0) {
+                return BatchResult.EMPTY;
+            }
+
+            int limit = Math.min(available, batchSize);
+            List<WaitlistRepository.NextRow> next = waitlistRepository.findNext(courseId, Limit.of(limit));
+            if (next.isEmpty()) {
+                return BatchResult.EMPTY;
+            }
+
+            List<Long> studentIds = next.stream().map(WaitlistRepository.NextRow::getStudentId).toList();
+            Set<Long> alreadyEnrolled = new HashSet<>(seatRepository.findEnrolledStudentIds(courseId, studentIds));
+
+            // Las altas se insertan en batch (hibernate.jdbc.batch_size), con referencias sin cargar entidades
+            Course course = courseRepository.getReferenceById(courseId);
+            LocalDate today = LocalDate.now();
+            List<Seat> seats = new ArrayList<>();
+            for (Long studentId : studentIds) {
+                // Quien se inscribió por otro medio mientras esperaba solo sale de la lista
+                if (!alreadyEnrolled.contains(studentId)) {
+                    seats.add(new Seat(today, null, studentRepository.getReferenceById(studentId), course));
+                }
+            }
+            seatRepository.saveAll(seats);
+            seatRepository.flush();
+            waitlistRepository.deleteByIdIn(next.stream().map(WaitlistRepository.NextRow::getId).toList());
+
+            if (!seats.isEmpty()) {
+                courseRepository.applyEnrollmentDelta(courseId, seats.size(), 0, 0.0);
+            }
+            AfterCommit.run(() -> {
+                depth.addAndGet(-next.size());
+                promotedCounter.increment(seats.size());
+            });
+            log.debug("Lista de espera del curso {}: {} estudiantes inscritos", courseId, seats.size());
+            return new BatchResult(next.size(), next.size() == limit);
+        }));
+
+        if (result == null || result.processed() == 0) {
+            return false;
+        }
+        batchTimer.record(Duration.ofNanos(System.nanoTime() - start));
+        batchSizeSummary.record(result.processed());
+        return result.full();
+    }
+
+    private record BatchResult(int processed, boolean full) {
+        static final BatchResult EMPTY = new BatchResult(0, false);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.ejerciciofinal.views;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import com.vaadin.flow.data.provider.CallbackDataProvider;
+import com.vaadin.flow.function.SerializableFunction;
+import com.vaadin.flow.function.SerializableSupplier;
+
+/**
+ * Crea DataProviders para Grid que paginan por clave (seek por id) en lugar de por offset
+ *
+ * El Grid pide filas por offset/limit; para cada página leída se recuerda el último id
+ * (el ancla del offset siguiente) y la página siguiente se busca con "id > ancla", que usa
+ * el índice de la PK y cuesta lo mismo a cualquier profundidad de scroll
+ * Si el Grid salta a un offset sin ancla (por ejemplo arrastrando la barra) se obtiene
+ * solo el id en ese offset y se continúa por clave desde ahí
+ */
+public final class KeysetDataProvider {
+
+    /**
+     * Obtiene hasta limit filas con id mayor a lastId, ordenadas por id ascendente
+     */
+    @FunctionalInterface
+    public interface PageAfter<T> extends Serializable {
+        List<T> fetch(long lastId, int limit);
+    }
+
+    /**
+     * Obtiene el id de la fila en la posición offset (orden por id ascendente)
+     */
+    @FunctionalInterface
+    public interface IdAtOffset extends Serializable {
+        Long fetch(int offset);
+    }
+
+    private KeysetDataProvider() {
+    }
+
+    public static <T> CallbackDataProvider<T, Void> of(PageAfter<T> pageAfter, IdAtOffset idAtOffset,
+            SerializableFunction<T, Long> idGetter, SerializableSupplier<Integer> counter) {
+
+        // offset -> id de la fila anterior a ese offset (propio de cada Grid/sesión)
+        Map<Integer, Long> anchors = new TreeMap<>();
+        anchors.put(0, 0L);
+
+        // El id también identifica a la fila dentro del Grid, así funciona con proyecciones sin equals/hashCode
+        return new CallbackDataProvider<>(
+                query -> {
+                    int offset = query.getOffset();
+                    int limit = query.getLimit();
+
+                    Long lastId = anchors.get(offset);
+                    if (lastId == null) {
+                        lastId = idAtOffset.fetch(offset - 1);
+                        if (lastId == null) {
+                            return Stream.empty();
+                        }
+                    }
+
+                    List<T> rows = pageAfter.fetch(lastId, limit);
+                    if (!rows.isEmpty()) {
+                        anchors.put(offset + rows.size(), idGetter.apply(rows.get(rows.size() - 1)));
+                    }
+                    return rows.stream();
+                },
+                query -> counter.get(),
+                idGetter::apply
+        );
+    }
+}
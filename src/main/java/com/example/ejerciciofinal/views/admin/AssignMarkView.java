@@ -1,10 +1,13 @@
 package com.example.ejerciciofinal.views.admin;
 
-import com.example.ejerciciofinal.dtos.CourseDTO;
-import com.example.ejerciciofinal.model.Student;
+import com.example.ejerciciofinal.dtos.LookupDTO;
+import com.example.ejerciciofinal.dtos.ResponseSeatDTO;
+import com.example.ejerciciofinal.dtos.RosterEntryDTO;
 import com.example.ejerciciofinal.security.AdminOnly;
 import com.example.ejerciciofinal.security.SecureView;
 import com.example.ejerciciofinal.services.CourseService;
+import com.example.ejerciciofinal.services.EditConflictException;
+import com.example.ejerciciofinal.services.LookupService;
 import com.example.ejerciciofinal.views.MainLayout;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
@@ -22,17 +25,19 @@ import com.vaadin.flow.router.Route;
 @PageTitle("Asignar Nota | Sistema Académico")
 public class AssignMarkView extends SecureView {
 
-    private final ComboBox<CourseDTO> courseComboBox = new ComboBox<>("Curso");
-    private final ComboBox<Student> studentComboBox = new ComboBox<>("Estudiante");
+    private final ComboBox<LookupDTO> courseComboBox = new ComboBox<>("Curso");
+    private final ComboBox<RosterEntryDTO> studentComboBox = new ComboBox<>("Estudiante");
     private final NumberField markField = new NumberField("Nota");
     private final Span yearOfSeat = new Span("Año de inscripción");
     private final Button saveButton = new Button("Guardar Nota");
     private final Span statusSpan = new Span();
     
     private final CourseService courseService;
+    private final LookupService lookupService;
 
-    public AssignMarkView(CourseService courseService) {
+    public AssignMarkView(CourseService courseService, LookupService lookupService) {
         this.courseService = courseService;
+        this.lookupService = lookupService;
 
         setSpacing(true);
         setPadding(true);
@@ -43,9 +48,10 @@ public class AssignMarkView extends SecureView {
         H2 title = new H2("Asignar Nota a Estudiante");
         add(title);
 
-        // ComboBox de cursos
-        courseComboBox.setItems(courseService.getAllCourses());
-        courseComboBox.setItemLabelGenerator(CourseDTO::getName);
+        // ComboBox de cursos, filtrado y paginado en la base
+        courseComboBox.setItems(query -> lookupService.findCourses(
+                query.getFilter().orElse(""), query.getPage(), query.getPageSize()).stream());
+        courseComboBox.setItemLabelGenerator(LookupDTO::getLabel);
         courseComboBox.setWidthFull();
         courseComboBox.setRequired(true);
         courseComboBox.setPlaceholder("Seleccione un curso");
@@ -60,9 +66,9 @@ public class AssignMarkView extends SecureView {
         studentComboBox.setEnabled(false);
         studentComboBox.setItemLabelGenerator(student -> 
             String.format("ID: %d - %s - #%s", 
-                student.getId(), 
-                student.getName(), 
-                student.getStudentNumber().toString().substring(0, 8) + "..."
+                student.getStudentId(), 
+                student.getStudentName(), 
+                student.getStudentNumber().substring(0, 8) + "..."
             )
         );
         studentComboBox.addValueChangeListener(e -> {
@@ -112,11 +118,11 @@ public class AssignMarkView extends SecureView {
     /**
      * Actualiza el ComboBox de estudiantes con los estudiantes inscritos en el curso seleccionado
      */
-    private void updateStudentComboBox(CourseDTO selectedCourse) {
+    private void updateStudentComboBox(LookupDTO selectedCourse) {
         if (selectedCourse != null) {
             try {
-                // Obtener estudiantes del curso de forma eficiente
-                var students = courseService.getStudentsInCourse(selectedCourse.getId());
+                // Obtener estudiantes del curso con su nota, en una sola consulta
+                var students = courseService.getCourseRoster(selectedCourse.getId());
                 
                 if (students.isEmpty()) {
                     studentComboBox.setItems();
@@ -149,16 +155,12 @@ public class AssignMarkView extends SecureView {
     /**
      * Muestra la nota actual del estudiante en el curso seleccionado (si tiene)
      */
-    private void showStudentCurrentMark(Student student) {
-        CourseDTO selectedCourse = courseComboBox.getValue();
+    private void showStudentCurrentMark(RosterEntryDTO student) {
+        LookupDTO selectedCourse = courseComboBox.getValue();
         if (selectedCourse != null && student != null) {
-            // Buscar la nota actual del estudiante en este curso
-            var currentSeat = student.getSeats().stream()
-                .filter(seat -> seat.getCourse().getId().equals(selectedCourse.getId()))
-                .findFirst();
-            
-            if (currentSeat.isPresent()) {
-                Double currentMark = currentSeat.get().getMark();
+            // El roster ya trae la nota y el año del Seat del estudiante en este curso
+            if (student.getCourseId().equals(selectedCourse.getId())) {
+                Double currentMark = student.getMark();
                 
                 statusSpan.getStyle().set("display", "block");
                 statusSpan.getStyle().set("background-color", "#e3f2fd");
@@ -173,7 +175,7 @@ public class AssignMarkView extends SecureView {
                 }
                 
                 // Mostrar año de inscripción
-                yearOfSeat.setText(String.format("Año de inscripción: %d", currentSeat.get().getYear().getYear()));
+                yearOfSeat.setText(String.format("Año de inscripción: %d", student.getYear().getYear()));
                 yearOfSeat.getStyle().set("display", "block");
                 
                 markField.setEnabled(true);
@@ -186,8 +188,8 @@ public class AssignMarkView extends SecureView {
      * Guarda la nota del estudiante en el curso
      */
     private void saveMarkToStudent() {
-        CourseDTO selectedCourse = courseComboBox.getValue();
-        Student selectedStudent = studentComboBox.getValue();
+        LookupDTO selectedCourse = courseComboBox.getValue();
+        RosterEntryDTO selectedStudent = studentComboBox.getValue();
         Double mark = markField.getValue();
 
         // Validaciones
@@ -206,15 +208,19 @@ public class AssignMarkView extends SecureView {
         }
 
         try {
-            courseService.setMarkToStudentInCourse(
+            ResponseSeatDTO saved = courseService.setMarkToStudentInCourse(
                 selectedCourse.getId(), 
-                selectedStudent.getId(), 
-                mark
+                selectedStudent.getStudentId(), 
+                mark,
+                selectedStudent.getSeatVersion()
             );
+            // Mantener la nota y la versión del item del ComboBox al día
+            selectedStudent.setMark(mark);
+            selectedStudent.setSeatVersion(saved.getVersion());
             
             Notification.show(
                 String.format("Nota %.2f asignada correctamente a %s en el curso %s", 
-                    mark, selectedStudent.getName(), selectedCourse.getName()), 
+                    mark, selectedStudent.getStudentName(), selectedCourse.getLabel()), 
                 4000, Notification.Position.MIDDLE)
                 .addThemeVariants(NotificationVariant.LUMO_SUCCESS);
             
@@ -223,6 +229,11 @@ public class AssignMarkView extends SecureView {
             statusSpan.getStyle().set("background-color", "#e8f5e9");
             statusSpan.getStyle().set("color", "#2e7d32");
             
+        } catch (EditConflictException ex) {
+            // Otro usuario cambió la nota: se recarga el curso y se muestra la nota actual para revisarla
+            Notification.show(ex.getMessage(), 5000, Notification.Position.MIDDLE)
+                .addThemeVariants(NotificationVariant.LUMO_WARNING);
+            reloadStudent(selectedCourse, selectedStudent.getStudentId());
         } catch (Exception ex) {
             Notification.show("Error al guardar la nota: " + ex.getMessage(), 
                 4000, Notification.Position.MIDDLE)
@@ -230,6 +241,20 @@ public class AssignMarkView extends SecureView {
         }
     }
 
+    /**
+     * Vuelve a cargar los estudiantes del curso y selecciona otra vez al estudiante, con su nota actual
+     */
+    private void reloadStudent(LookupDTO selectedCourse, Long studentId) {
+        updateStudentComboBox(selectedCourse);
+        studentComboBox.getListDataView().getItems()
+                .filter(student -> student.getStudentId().equals(studentId))
+                .findFirst()
+                .ifPresent(student -> {
+                    studentComboBox.setValue(student);
+                    showStudentCurrentMark(student);
+                });
+    }
+
     /**
      * Limpia el formulario al cambiar de curso
      */
@@ -1,25 +1,31 @@
 package com.example.ejerciciofinal.views.admin;
 
-import java.util.List;
+import java.util.Arrays;
 
-import com.example.ejerciciofinal.dtos.CourseDTO;
+import com.example.ejerciciofinal.dtos.BulkEnrollmentResultDTO;
+import com.example.ejerciciofinal.dtos.BulkEnrollmentResultDTO.Status;
+import com.example.ejerciciofinal.dtos.EnrollmentResultDTO;
+import com.example.ejerciciofinal.dtos.LookupDTO;
 import com.example.ejerciciofinal.dtos.StudentSearchDTO;
 import com.example.ejerciciofinal.model.Student;
 import com.example.ejerciciofinal.security.AdminOnly;
 import com.example.ejerciciofinal.security.SecureView;
+import com.example.ejerciciofinal.services.BulkEnrollmentService;
 import com.example.ejerciciofinal.services.CourseService;
+import com.example.ejerciciofinal.services.LookupService;
 import com.example.ejerciciofinal.services.UserService;
 import com.example.ejerciciofinal.views.MainLayout;
 import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.checkbox.Checkbox;
 import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.html.H2;
 import com.vaadin.flow.component.html.H3;
 import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
-import com.vaadin.flow.data.provider.DataProvider;
-import com.vaadin.flow.data.provider.ListDataProvider;
+import com.vaadin.flow.component.textfield.TextArea;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 
@@ -30,6 +36,8 @@ public class AssignStudentToCourseView extends SecureView {
 
     private final UserService userService;
     private final CourseService courseService;
+    private final LookupService lookupService;
+    private final BulkEnrollmentService bulkEnrollmentService;
 
     private final VerticalLayout studentSection = new VerticalLayout();
     private final ComboBox<StudentSearchDTO> studentComboBox = new ComboBox<>("Buscar Estudiante");
@@ -38,17 +46,26 @@ public class AssignStudentToCourseView extends SecureView {
     
     private final Span canAssignSpan = new Span();
 
-    private final ComboBox<CourseDTO> courseComboBox = new ComboBox<>("Curso");
+    private final ComboBox<LookupDTO> courseComboBox = new ComboBox<>("Curso");
+
+    // Inscripción masiva: lista de IDs o números de estudiante
+    private final VerticalLayout bulkSection = new VerticalLayout();
+    private final TextArea bulkTextArea = new TextArea("Inscripción masiva");
+    private final Checkbox syncCheckbox = new Checkbox("Sincronizar: dar de baja a los inscritos que no están en la lista");
+    private final Button bulkButton = new Button("Inscribir lista");
+    private final Span bulkSummarySpan = new Span();
+    private final Grid<BulkEnrollmentResultDTO.Entry> bulkResultGrid = new Grid<>(BulkEnrollmentResultDTO.Entry.class, false);
 
-    private ListDataProvider<StudentSearchDTO> studentDataProvider;
-    
     // Variables para rastrear selecciones previas
-    private CourseDTO previousCourse = null;
+    private LookupDTO previousCourse = null;
     private StudentSearchDTO previousStudent = null;
 
-    public AssignStudentToCourseView(UserService userService, CourseService courseService) {
+    public AssignStudentToCourseView(UserService userService, CourseService courseService, LookupService lookupService,
+            BulkEnrollmentService bulkEnrollmentService) {
         this.userService = userService;
         this.courseService = courseService;
+        this.lookupService = lookupService;
+        this.bulkEnrollmentService = bulkEnrollmentService;
 
         setSpacing(true);
         setPadding(true);
@@ -64,9 +81,10 @@ public class AssignStudentToCourseView extends SecureView {
                 .set("margin-bottom", "5px")
                 .set("display", "block");
 
-        // Combobox de cursos
-        courseComboBox.setItems(courseService.getAllCourses());
-        courseComboBox.setItemLabelGenerator(CourseDTO::getName);
+        // Combobox de cursos, filtrado y paginado en la base
+        courseComboBox.setItems(query -> lookupService.findCourses(
+                query.getFilter().orElse(""), query.getPage(), query.getPageSize()).stream());
+        courseComboBox.setItemLabelGenerator(LookupDTO::getLabel);
         courseComboBox.setWidthFull();
         courseComboBox.setRequired(true);
         courseComboBox.setPlaceholder("Seleccione un curso");
@@ -75,16 +93,28 @@ public class AssignStudentToCourseView extends SecureView {
         add(courseComboBox, studentComboBox, assignButton, canAssignSpan, studentSection, studentDetailsSection);
 
         configureStudentComboBox();
+        configureBulkSection();
+        add(bulkSection);
 
         assignButton.setEnabled(false);
         assignButton.addClickListener(e -> {
-            CourseDTO selectedCourse = courseComboBox.getValue();
+            LookupDTO selectedCourse = courseComboBox.getValue();
             StudentSearchDTO selectedStudent = studentComboBox.getValue();
             if (selectedCourse != null && selectedStudent != null) {
                 try {
-                    courseService.assignStudentToCourse(selectedStudent.getId(), selectedCourse.getId());
-                    canAssignSpan.setText("Estudiante asignado correctamente al curso.");
-                    canAssignSpan.getStyle().set("color", "green").set("font-weight", "bold");
+                    EnrollmentResultDTO result = courseService.assignStudentToCourse(selectedStudent.getId(), selectedCourse.getId());
+                    if (result.getStatus() == EnrollmentResultDTO.Status.WAITLISTED) {
+                        canAssignSpan.setText("El curso está lleno: el estudiante quedó en la lista de espera (posición "
+                                + result.getWaitlistPosition() + ") y se inscribirá cuando se libere un lugar.");
+                        canAssignSpan.getStyle().set("color", "#e65100").set("font-weight", "bold");
+                    } else if (result.getStatus() == EnrollmentResultDTO.Status.PENDING) {
+                        canAssignSpan.setText("La inscripción sigue en proceso y puede completarse en unos segundos, "
+                                + "verifique el estado antes de volver a intentarlo.");
+                        canAssignSpan.getStyle().set("color", "#e65100").set("font-weight", "bold");
+                    } else {
+                        canAssignSpan.setText("Estudiante asignado correctamente al curso.");
+                        canAssignSpan.getStyle().set("color", "green").set("font-weight", "bold");
+                    }
                     canAssignSpan.setVisible(true);
                     assignButton.setEnabled(false);
                     
@@ -101,7 +131,7 @@ public class AssignStudentToCourseView extends SecureView {
 
     }
 
-    private void updateForm(CourseDTO courseDTO) {
+    private void updateForm(LookupDTO courseDTO) {
         // Solo limpiar si realmente cambió el curso (comparando IDs)
         boolean courseChanged = false;
         
@@ -119,8 +149,13 @@ public class AssignStudentToCourseView extends SecureView {
             studentSection.setVisible(false);
         }
         
+        bulkSection.setVisible(courseDTO != null);
+
         // Solo limpiar campos si el curso realmente cambió
         if (courseChanged) {
+            bulkSummarySpan.setText("");
+            bulkResultGrid.setItems();
+            bulkResultGrid.setVisible(false);
             studentComboBox.clear();
             canAssignSpan.setText("");
             canAssignSpan.setVisible(false);
@@ -135,25 +170,14 @@ public class AssignStudentToCourseView extends SecureView {
 
     private void configureStudentComboBox() {
         // Combobox de estudiante, filtrable
-        List<StudentSearchDTO> allStudents = userService.getAllStudentsForSearch();
-
-        // Crear DataProvider con filtrado
-        studentDataProvider = DataProvider.ofCollection(allStudents);
-
-        studentComboBox.setItems(studentDataProvider);
         studentComboBox.setItemLabelGenerator(StudentSearchDTO::getDisplayLabel);
         studentComboBox.setWidthFull();
         studentComboBox.setRequired(true);
         studentComboBox.setPlaceholder("Buscar por ID, nombre o número de estudainte");
 
-        // Habilitar filtrado en el combobox
-        studentComboBox.setItems(query -> {
-            String filter = query.getFilter().orElse("").toLowerCase();
-            return allStudents.stream()
-                    .filter(student -> student.matchesFilter(filter))
-                    .skip(query.getOffset())
-                    .limit(query.getLimit());
-        });
+        // Filtrado y paginado en la base: el combobox pide solo la página visible
+        studentComboBox.setItems(query -> userService.searchStudents(
+                query.getFilter().orElse(""), query.getOffset(), query.getLimit()).stream());
 
         // Listener para cuando se seleccione un estudiante
         studentComboBox.addValueChangeListener(e -> {
@@ -172,6 +196,51 @@ public class AssignStudentToCourseView extends SecureView {
         });
     }
 
+    private void configureBulkSection() {
+        bulkSection.setPadding(false);
+        bulkSection.setVisible(false);
+
+        bulkTextArea.setWidthFull();
+        bulkTextArea.setMinHeight("150px");
+        bulkTextArea.setPlaceholder("Un ID o número de estudiante por línea (también separados por coma o espacio)");
+
+        bulkResultGrid.addColumn(BulkEnrollmentResultDTO.Entry::getIdentifier).setHeader("ID / Número").setAutoWidth(true);
+        bulkResultGrid.addColumn(BulkEnrollmentResultDTO.Entry::getStudentId).setHeader("ID Estudiante").setAutoWidth(true);
+        bulkResultGrid.addColumn(entry -> entry.getWaitlistPosition() != null
+                ? entry.getStatus().getLabel() + " (posición " + entry.getWaitlistPosition() + ")"
+                : entry.getStatus().getLabel()).setHeader("Resultado").setAutoWidth(true);
+        bulkResultGrid.setHeight("300px");
+        bulkResultGrid.setVisible(false);
+
+        bulkButton.addClickListener(e -> {
+            LookupDTO selectedCourse = courseComboBox.getValue();
+            if (selectedCourse == null) {
+                return;
+            }
+            try {
+                BulkEnrollmentResultDTO result = bulkEnrollmentService.enroll(selectedCourse.getId(),
+                        Arrays.asList(bulkTextArea.getValue().split("[\\s,;]+")), syncCheckbox.getValue());
+
+                bulkSummarySpan.setText(result.count(Status.ADDED) + " inscritos, "
+                        + result.count(Status.REMOVED) + " dados de baja, "
+                        + result.count(Status.ALREADY_ENROLLED) + " ya inscritos, "
+                        + result.count(Status.WAITLISTED) + " en lista de espera, "
+                        + result.count(Status.ALREADY_WAITING) + " ya en lista de espera, "
+                        + result.count(Status.DUPLICATE) + " repetidos, "
+                        + result.count(Status.UNKNOWN) + " no encontrados.");
+                bulkSummarySpan.getStyle().set("color", "green").set("font-weight", "bold");
+                bulkResultGrid.setItems(result.getEntries());
+                bulkResultGrid.setVisible(true);
+            } catch (IllegalArgumentException ex) {
+                bulkSummarySpan.setText("Error en la inscripción masiva: " + ex.getMessage());
+                bulkSummarySpan.getStyle().set("color", "red").set("font-weight", "bold");
+                bulkResultGrid.setVisible(false);
+            }
+        });
+
+        bulkSection.add(bulkTextArea, syncCheckbox, bulkButton, bulkSummarySpan, bulkResultGrid);
+    }
+
     private void showStudentDetails(Long studentId) {
 
         studentDetailsSection.removeAll();
@@ -262,7 +331,7 @@ public class AssignStudentToCourseView extends SecureView {
         canAssignSpan.setText("");
         assignButton.setEnabled(false);
 
-        CourseDTO selectedCourse = courseComboBox.getValue();
+        LookupDTO selectedCourse = courseComboBox.getValue();
         if (selectedCourse == null) {
             canAssignSpan.setText("Por favor, seleccione un curso primero.");
             canAssignSpan.getStyle().set("color", "red").set("font-weight", "bold");
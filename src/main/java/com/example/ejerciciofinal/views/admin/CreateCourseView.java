@@ -2,9 +2,11 @@ package com.example.ejerciciofinal.views.admin;
 
 import com.example.ejerciciofinal.dtos.CreateCourseDTO;
 import com.example.ejerciciofinal.dtos.CreateUserDTO.ProfessorDTO;
+import com.example.ejerciciofinal.dtos.LookupDTO;
 import com.example.ejerciciofinal.security.AdminOnly;
 import com.example.ejerciciofinal.security.SecureView;
 import com.example.ejerciciofinal.services.CourseService;
+import com.example.ejerciciofinal.services.LookupService;
 import com.example.ejerciciofinal.services.UserService;
 import com.example.ejerciciofinal.views.MainLayout;
 import com.vaadin.flow.component.button.Button;
@@ -26,9 +28,10 @@ public class CreateCourseView extends SecureView {
 
     private final CourseService courseService;
     private final UserService userService;
+    private final LookupService lookupService;
     private final TextField nameField = new TextField("Nombre del curso");
     private final NumberField seatsAmmount = new NumberField("Cantidad de cupos");
-    private final ComboBox<ProfessorDTO> professorComboBox = new ComboBox<>("Profesor");
+    private final ComboBox<LookupDTO> professorComboBox = new ComboBox<>("Profesor");
 
     private final Binder<CreateCourseDTO> courseBinder = new Binder<>(CreateCourseDTO.class);
 
@@ -37,10 +40,11 @@ public class CreateCourseView extends SecureView {
     public final Button saveButton = new Button("Guardar");
 
 
-    public CreateCourseView(CourseService courseService, UserService userService){
+    public CreateCourseView(CourseService courseService, UserService userService, LookupService lookupService){
 
         this.userService = userService;
         this.courseService = courseService;
+        this.lookupService = lookupService;
 
         setSpacing(true);
         setPadding(true);
@@ -62,9 +66,11 @@ public class CreateCourseView extends SecureView {
 
         professorComboBox.setWidthFull();
         professorComboBox.setRequired(true);
-        professorComboBox.setItemLabelGenerator(ProfessorDTO::getName);
+        professorComboBox.setItemLabelGenerator(LookupDTO::getLabel);
         professorComboBox.setPlaceholder("Seleccione un profesor");
-        professorComboBox.setItems(userService.getAllProfessors());
+        // Filtrado y paginado en la base, solo se traen id y nombre
+        professorComboBox.setItems(query -> lookupService.findProfessors(
+                query.getFilter().orElse(""), query.getPage(), query.getPageSize()).stream());
 
         saveButton.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
         saveButton.addClickListener(e -> saveCourse());
@@ -93,11 +99,24 @@ public class CreateCourseView extends SecureView {
 
         courseBinder.forField(professorComboBox)
                 .asRequired("El profesor es obligatorio")
+                .withConverter(
+                    // LookupDTO -> ProfessorDTO (createCourse solo usa el id del profesor)
+                    lookup -> lookup != null ? toProfessorDTO(lookup) : null,
+                    // ProfessorDTO -> LookupDTO
+                    professor -> professor != null ? new LookupDTO(professor.getId(), professor.getName()) : null
+                )
                 .bind(CreateCourseDTO::getProfessor, CreateCourseDTO::setProfessor);
 
         courseBinder.setBean(newCourse);
     }
 
+    private static ProfessorDTO toProfessorDTO(LookupDTO lookup) {
+        ProfessorDTO professor = new ProfessorDTO();
+        professor.setId(lookup.getId());
+        professor.setName(lookup.getLabel());
+        return professor;
+    }
+
     private void saveCourse() {
         if (courseBinder.validate().isOk()) {
             try {
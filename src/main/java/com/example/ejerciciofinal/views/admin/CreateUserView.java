@@ -1,18 +1,26 @@
 package com.example.ejerciciofinal.views.admin;
 
+import java.io.IOException;
+
+import org.springframework.dao.DataAccessException;
+
 import com.example.ejerciciofinal.dtos.AddressDTO;
 import com.example.ejerciciofinal.dtos.CreateUserDTO;
 import com.example.ejerciciofinal.dtos.CreateUserDTO.PersonDTO;
 import com.example.ejerciciofinal.dtos.CreateUserDTO.ProfessorDTO;
 import com.example.ejerciciofinal.dtos.CreateUserDTO.StudentDTO;
+import com.example.ejerciciofinal.dtos.UserImportResultDTO;
 import com.example.ejerciciofinal.model.Role;
 import com.example.ejerciciofinal.security.AdminOnly;
 import com.example.ejerciciofinal.security.SecureView;
+import com.example.ejerciciofinal.services.UserImportService;
 import com.example.ejerciciofinal.services.UserService;
 import com.example.ejerciciofinal.views.MainLayout;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.html.Anchor;
 import com.vaadin.flow.component.html.H2;
 import com.vaadin.flow.component.html.H3;
 import com.vaadin.flow.component.html.Span;
@@ -23,9 +31,12 @@ import com.vaadin.flow.component.textfield.EmailField;
 import com.vaadin.flow.component.textfield.NumberField;
 import com.vaadin.flow.component.textfield.PasswordField;
 import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.component.upload.Upload;
 import com.vaadin.flow.data.binder.Binder;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.server.streams.DownloadHandler;
+import com.vaadin.flow.server.streams.UploadHandler;
 
 @AdminOnly
 @Route(value = "admin/create-user", layout = MainLayout.class)
@@ -33,6 +44,7 @@ import com.vaadin.flow.router.Route;
 public class CreateUserView extends SecureView {
 
     private final UserService userService;
+    private final UserImportService userImportService;
 
     private final Binder<CreateUserDTO> userBinder = new Binder<>(CreateUserDTO.class);
     private final Binder<AddressDTO> addressBinder = new Binder<>(AddressDTO.class);
@@ -73,8 +85,15 @@ public class CreateUserView extends SecureView {
 
     private final Button saveButton = new Button("Guardar Usuario");
 
-    public CreateUserView(UserService userService) { // auto inyectado por spring
+    // Importación masiva desde CSV/TSV
+    private final VerticalLayout importSection = new VerticalLayout();
+    private final Span importResultSpan = new Span();
+    private final Anchor rejectedReportLink = new Anchor();
+    private final Grid<UserImportResultDTO.RejectedRow> rejectedGrid = new Grid<>(UserImportResultDTO.RejectedRow.class, false);
+
+    public CreateUserView(UserService userService, UserImportService userImportService) { // auto inyectado por spring
         this.userService = userService;
+        this.userImportService = userImportService;
 
         setSpacing(true);
         setPadding(true);
@@ -162,6 +181,71 @@ public class CreateUserView extends SecureView {
         configureBinders();
 
         add(usernameField, passwordField, roleComboBox, personSection, addressSection, studentSection, professorSection, saveButton);
+
+        configureImportSection();
+        add(importSection);
+    }
+
+    private void configureImportSection() {
+        importSection.setPadding(false);
+
+        Span formatHelp = new Span("Encabezado: username, password, role, name, phone, email, street, city, state, country, salary "
+                + "(separado por coma, punto y coma o tabulación). name, phone y email son obligatorios para STUDENT y PROFESSOR, "
+                + "salary para PROFESSOR.");
+        formatHelp.getStyle().set("color", "#616161").set("font-size", "0.9em");
+
+        // El archivo se procesa mientras se recibe, sin guardarlo entero en memoria ni en disco
+        UploadHandler importHandler = event -> {
+            try {
+                UserImportResultDTO result = userImportService.importUsers(event.getInputStream());
+                event.getUI().access(() -> showImportResult(result));
+            } catch (IllegalArgumentException e) {
+                event.getUI().access(() -> showError("Error en el archivo: " + e.getMessage()));
+            } catch (IOException e) {
+                event.getUI().access(() -> showError("No se pudo leer el archivo: " + e.getMessage()
+                        + ". Los bloques ya guardados quedan importados."));
+            } catch (DataAccessException e) {
+                // Las violaciones de restricciones por fila ya se rechazan en el servicio, esto es un fallo de la base
+                event.getUI().access(() -> showError("Error de base de datos al importar: "
+                        + e.getMostSpecificCause().getMessage() + ". Los bloques ya guardados quedan importados."));
+            }
+        };
+        Upload upload = new Upload(importHandler);
+        upload.setAcceptedFileTypes(".csv", ".tsv", ".txt", "text/csv", "text/tab-separated-values", "text/plain");
+        upload.setMaxFiles(1);
+        upload.setWidthFull();
+
+        rejectedGrid.addColumn(UserImportResultDTO.RejectedRow::getLine).setHeader("Línea").setAutoWidth(true).setFlexGrow(0);
+        rejectedGrid.addColumn(UserImportResultDTO.RejectedRow::getReason).setHeader("Motivo").setAutoWidth(true);
+        rejectedGrid.addColumn(UserImportResultDTO.RejectedRow::getContent).setHeader("Contenido");
+        rejectedGrid.setHeight("250px");
+        rejectedGrid.setVisible(false);
+
+        rejectedReportLink.setText("Descargar filas rechazadas (CSV)");
+        rejectedReportLink.setVisible(false);
+
+        importSection.add(new H3("Importar Usuarios desde CSV"), formatHelp, upload, importResultSpan,
+                rejectedReportLink, rejectedGrid);
+    }
+
+    private void showImportResult(UserImportResultDTO result) {
+        importResultSpan.setText(result.getImported() + " usuarios importados (" + result.getStudents() + " estudiantes, "
+                + result.getProfessors() + " profesores, " + result.getAdmins() + " administradores), "
+                + result.getRejected() + " filas rechazadas.");
+        importResultSpan.getStyle().set("font-weight", "bold")
+                .set("color", result.getRejected() == 0 ? "green" : "#e65100");
+
+        boolean hasRejected = result.getRejectedReport() != null;
+        if (hasRejected) {
+            rejectedReportLink.setHref(DownloadHandler.forFile(result.getRejectedReport(), "usuarios-rechazados.csv"));
+        }
+        rejectedReportLink.setVisible(hasRejected);
+        rejectedGrid.setItems(result.getRejectedPreview());
+        rejectedGrid.setVisible(hasRejected);
+
+        if (result.getImported() > 0) {
+            showSuccess(result.getImported() + " usuarios importados");
+        }
     }
 
     private void updateFormBasedOnRole(Role selectedRole) {
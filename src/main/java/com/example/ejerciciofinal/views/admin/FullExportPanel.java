@@ -0,0 +1,136 @@
+package com.example.ejerciciofinal.views.admin;
+
+import com.example.ejerciciofinal.services.ExportFormat;
+import com.example.ejerciciofinal.services.ExportJob;
+import com.example.ejerciciofinal.services.ExportJobService;
+import com.example.ejerciciofinal.services.ExportReport;
+import com.vaadin.flow.component.AttachEvent;
+import com.vaadin.flow.component.DetachEvent;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.button.ButtonVariant;
+import com.vaadin.flow.component.html.Anchor;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.notification.Notification;
+import com.vaadin.flow.component.notification.NotificationVariant;
+import com.vaadin.flow.component.orderedlayout.FlexComponent;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.progressbar.ProgressBar;
+import com.vaadin.flow.server.streams.DownloadHandler;
+
+/**
+ * Exportación del listado completo (CSV y Excel) para las vistas de administración
+ * El archivo se genera en segundo plano con ExportJobService: la vista sigue respondiendo, el progreso
+ * llega por push y al terminar se ofrece el enlace de descarga del archivo generado
+ * Si el usuario sale de la vista, la exportación en curso se cancela
+ */
+class FullExportPanel extends HorizontalLayout {
+
+    private final ExportJobService exportJobService;
+    private final ExportReport report;
+
+    private final Button csvButton = new Button("CSV (completo)");
+    private final Button xlsxButton = new Button("Excel (completo)");
+    private final Button cancelButton = new Button("Cancelar");
+    private final ProgressBar progressBar = new ProgressBar();
+    private final Span statusSpan = new Span();
+    private final Anchor downloadLink = new Anchor();
+
+    private ExportJob currentJob;
+
+    FullExportPanel(ExportJobService exportJobService, ExportReport report) {
+        this.exportJobService = exportJobService;
+        this.report = report;
+
+        setSpacing(true);
+        setAlignItems(FlexComponent.Alignment.CENTER);
+
+        Span label = new Span("Exportar listado completo:");
+        label.getStyle()
+                .set("font-size", "0.9rem")
+                .set("color", "#616161");
+
+        csvButton.addThemeVariants(ButtonVariant.LUMO_SMALL);
+        csvButton.addClickListener(event -> start(ExportFormat.CSV));
+        xlsxButton.addThemeVariants(ButtonVariant.LUMO_SMALL);
+        xlsxButton.addClickListener(event -> start(ExportFormat.XLSX));
+        cancelButton.addThemeVariants(ButtonVariant.LUMO_SMALL, ButtonVariant.LUMO_TERTIARY);
+        cancelButton.addClickListener(event -> currentJob.cancel());
+
+        progressBar.setWidth("200px");
+        statusSpan.getStyle().set("font-size", "0.9rem");
+        downloadLink.setText("Descargar");
+
+        add(label, csvButton, xlsxButton, progressBar, statusSpan, cancelButton, downloadLink);
+        showIdle();
+    }
+
+    private void start(ExportFormat format) {
+        if (currentJob != null) {
+            // El archivo anterior ya no se ofrece, se libera
+            currentJob.cancel();
+        }
+        UI ui = UI.getCurrent();
+        try {
+            currentJob = exportJobService.submit(report, format, job -> ui.access(() -> showProgress(job)));
+        } catch (IllegalArgumentException ex) {
+            Notification.show(ex.getMessage(), 5000, Notification.Position.TOP_CENTER)
+                    .addThemeVariants(NotificationVariant.LUMO_ERROR);
+            return;
+        }
+        showProgress(currentJob);
+    }
+
+    private void showProgress(ExportJob job) {
+        if (job != currentJob) {
+            // Aviso atrasado de un trabajo reemplazado
+            return;
+        }
+        boolean running = !job.isFinished();
+        csvButton.setEnabled(!running);
+        xlsxButton.setEnabled(!running);
+        cancelButton.setVisible(running);
+        progressBar.setVisible(running);
+        progressBar.setIndeterminate(job.getState() == ExportJob.State.QUEUED);
+        progressBar.setValue(job.getProgress());
+        downloadLink.setVisible(job.getState() == ExportJob.State.DONE);
+
+        switch (job.getState()) {
+            case QUEUED -> statusSpan.setText(job.getState().getLabel() + "...");
+            case RUNNING -> statusSpan.setText(String.format("%s: %,d de ~%,d filas",
+                    job.getState().getLabel(), job.getRows(), job.getEstimatedRows()));
+            case DONE -> {
+                statusSpan.setText(String.format("%s: %,d filas", job.getState().getLabel(), job.getRows()));
+                downloadLink.setHref(DownloadHandler.forFile(job.getFile(), job.getFileName()));
+            }
+            case FAILED -> statusSpan.setText(job.getState().getLabel() + ": " + job.getError());
+            case CANCELLED -> showIdle();
+        }
+    }
+
+    private void showIdle() {
+        csvButton.setEnabled(true);
+        xlsxButton.setEnabled(true);
+        cancelButton.setVisible(false);
+        progressBar.setVisible(false);
+        downloadLink.setVisible(false);
+        statusSpan.setText("");
+    }
+
+    @Override
+    protected void onAttach(AttachEvent attachEvent) {
+        super.onAttach(attachEvent);
+        if (currentJob != null) {
+            showProgress(currentJob);
+        }
+    }
+
+    @Override
+    protected void onDetach(DetachEvent detachEvent) {
+        super.onDetach(detachEvent);
+        if (currentJob != null) {
+            currentJob.cancel();
+            currentJob = null;
+        }
+    }
+}
@@ -1,23 +1,18 @@
 package com.example.ejerciciofinal.views.admin;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-
-import org.springframework.data.domain.Page;
-
-import com.example.ejerciciofinal.model.Course;
+import com.example.ejerciciofinal.dtos.CourseSummary;
 import com.example.ejerciciofinal.security.AdminOnly;
 import com.example.ejerciciofinal.security.SecureView;
 import com.example.ejerciciofinal.services.CourseService;
+import com.example.ejerciciofinal.services.ExportJobService;
+import com.example.ejerciciofinal.services.ExportReport;
+import com.example.ejerciciofinal.views.KeysetDataProvider;
 import com.example.ejerciciofinal.views.MainLayout;
-import com.flowingcode.vaadin.addons.gridexporter.GridExporter;
 import com.vaadin.flow.component.grid.Grid;
-import com.vaadin.flow.component.grid.Grid.Column;
 import com.vaadin.flow.component.grid.GridVariant;
 import com.vaadin.flow.component.html.H2;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.data.provider.CallbackDataProvider;
-import com.vaadin.flow.data.provider.DataProvider;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 
@@ -27,19 +22,15 @@ import com.vaadin.flow.router.Route;
 public class ListCoursesView extends SecureView {
 
     private final CourseService courseService;
-    private final Grid<Course> grid = new Grid<>(Course.class, false);
-
-    // Referencias a columnas para el exporter
-    private Column<Course> idColumn;
-    private Column<Course> nameColumn;
-    private Column<Course> professorColumn;
-    private Column<Course> seatsColumn;
+    private final ExportJobService exportJobService;
+    private final Grid<CourseSummary> grid = new Grid<>(CourseSummary.class, false);
 
     private static final int PAGE_SIZE = 10; // 10 cursos por página
 
-    public ListCoursesView(CourseService courseService) {
+    public ListCoursesView(CourseService courseService, ExportJobService exportJobService) {
 
         this.courseService = courseService;
+        this.exportJobService = exportJobService;
 
         // Solo ancho completo, altura automática según contenido
         setWidthFull();
@@ -55,10 +46,11 @@ public class ListCoursesView extends SecureView {
         // Configurar DataProvider con paginación
         configureDataProvider();
 
-        // Configurar GridExporter DESPUÉS del grid
-        configureGridExporter();
-
         add(grid);
+
+        // CSV y Excel del listado completo en segundo plano, sin pasar por el Grid
+        // No hay exportación a PDF/DOCX: se generaba en el hilo de la petición con todas las filas en memoria
+        add(new FullExportPanel(exportJobService, ExportReport.COURSES));
     }
 
     private void configureGrid() {
@@ -66,80 +58,29 @@ public class ListCoursesView extends SecureView {
         grid.setWidthFull();
         grid.addThemeVariants(GridVariant.LUMO_ROW_STRIPES, GridVariant.LUMO_COMPACT);
 
-        // Definir columnas y guardar referencias para el exporter
-        idColumn = grid.addColumn(Course::getId).setHeader("ID").setWidth("80px").setFlexGrow(0);
-        nameColumn = grid.addColumn(Course::getName).setHeader("Nombre").setAutoWidth(true);
-        professorColumn = grid.addColumn(course -> course.getProfessor() != null ? course.getProfessor().getName() : "N/A")
+        // Definir columnas
+        grid.addColumn(CourseSummary::getId).setHeader("ID").setWidth("80px").setFlexGrow(0);
+        grid.addColumn(CourseSummary::getName).setHeader("Nombre").setAutoWidth(true);
+        grid.addColumn(course -> course.getProfessorName() != null ? course.getProfessorName() : "N/A")
                 .setHeader("Profesor")
                 .setAutoWidth(true);
-        seatsColumn = grid.addColumn(course -> course.getSeats() != null ? course.getSeats().size() : 0)
-                .setHeader("Cantidad de Cupos")
+        grid.addColumn(course -> String.format("%d / %d", course.getOccupied(), course.getCapacity()))
+                .setHeader("Cupos (ocupados / total)")
                 .setAutoWidth(true);
 
     }
 
     private void configureDataProvider() {
-        // DataProvider con lazy loading y paginación
-        CallbackDataProvider<Course, Void> dataProvider = DataProvider.fromCallbacks(
-                query -> {
-                    int pageIndex = query.getPage();
-                    int pageSize = query.getPageSize();
-
-                    Page<Course> coursePage = courseService.findAllCoursesPaginated(pageIndex, pageSize);
-                    return coursePage.getContent().stream();
-                },
-                query -> {
-                    return (int) courseService.countCourses();
-                }
+        // DataProvider con lazy loading y paginación por clave (id de la última fila leída)
+        CallbackDataProvider<CourseSummary, Void> dataProvider = KeysetDataProvider.of(
+                courseService::findCoursesAfter,
+                courseService::findCourseIdAtOffset,
+                CourseSummary::getId,
+                () -> (int) courseService.countCourses()
         );
 
         grid.setDataProvider(dataProvider);
         grid.setPageSize(PAGE_SIZE);
         
     }
-
-    /**
-     * Configura el GridExporter para permitir exportar los datos a Excel, CSV y PDF
-     */
-    private void configureGridExporter() {
-        GridExporter<Course> exporter = GridExporter.createFor(grid);
-        
-        // Configurar título del documento exportado
-        exporter.setTitle("Listado de Cursos del Sistema");
-        
-        // Nombre del archivo con timestamp
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        exporter.setFileName("Cursos_" + timestamp);
-        
-        // Configurar valores de exportación para columnas especiales
-        
-        // Columna de Profesor - asegurar que siempre hay un valor
-        exporter.setExportValue(professorColumn, course -> {
-            if (course.getProfessor() != null) {
-                return course.getProfessor().getName();
-            }
-            return "Sin profesor asignado";
-        });
-        
-        // Columna de Cantidad de Cupos
-        exporter.setExportValue(seatsColumn, course -> {
-            if (course.getSeats() != null) {
-                int totalSeats = course.getSeats().size();
-                long occupiedSeats = course.getSeats().stream()
-                    .filter(seat -> seat.getStudent() != null)
-                    .count();
-                return String.format("Total: %d | Ocupados: %d | Disponibles: %d", 
-                    totalSeats, occupiedSeats, (totalSeats - occupiedSeats));
-            }
-            return "0";
-        });
-        
-        // Configurar auto-ajuste de columnas
-        exporter.setAutoSizeColumns(true);
-        
-        // Configurar charset para CSV (importante para caracteres especiales en español)
-        exporter.setCsvCharset(() -> java.nio.charset.StandardCharsets.UTF_8);
-        
-        // El exporter agrega automáticamente los botones de exportación al footer del grid
-    }
 }
@@ -1,10 +1,5 @@
 package com.example.ejerciciofinal.views.admin;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-
-import org.springframework.data.domain.Page;
-
 import com.example.ejerciciofinal.model.Course;
 import com.example.ejerciciofinal.model.Person;
 import com.example.ejerciciofinal.model.Professor;
@@ -12,12 +7,13 @@ import com.example.ejerciciofinal.model.Seat;
 import com.example.ejerciciofinal.model.Student;
 import com.example.ejerciciofinal.security.AdminOnly;
 import com.example.ejerciciofinal.security.SecureView;
+import com.example.ejerciciofinal.services.ExportJobService;
+import com.example.ejerciciofinal.services.ExportReport;
 import com.example.ejerciciofinal.services.UserService;
+import com.example.ejerciciofinal.views.KeysetDataProvider;
 import com.example.ejerciciofinal.views.MainLayout;
-import com.flowingcode.vaadin.addons.gridexporter.GridExporter;
 import com.vaadin.flow.component.dialog.Dialog;
 import com.vaadin.flow.component.grid.Grid;
-import com.vaadin.flow.component.grid.Grid.Column;
 import com.vaadin.flow.component.grid.GridVariant;
 import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.html.H2;
@@ -25,7 +21,6 @@ import com.vaadin.flow.component.html.H3;
 import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.data.provider.CallbackDataProvider;
-import com.vaadin.flow.data.provider.DataProvider;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 
@@ -35,22 +30,15 @@ import com.vaadin.flow.router.Route;
 public class ListUsersView extends SecureView {
 
     private final UserService userService;
+    private final ExportJobService exportJobService;
     private final Grid<Person> grid = new Grid<>(Person.class, false);
 
-    // Referencias a columnas para el exporter
-    private Column<Person> idColumn;
-    private Column<Person> nameColumn;
-    private Column<Person> emailColumn;
-    private Column<Person> phoneColumn;
-    private Column<Person> typeColumn;
-    private Column<Person> numberSalaryColumn;
-    private Column<Person> locationColumn;
-
     // Configuración de paginación, no estoy seguro que debería estar definido en esta clase
     private static final int PAGE_SIZE = 10; // 10 usuarios por página
 
-    public ListUsersView(UserService userService) {
+    public ListUsersView(UserService userService, ExportJobService exportJobService) {
         this.userService = userService;
+        this.exportJobService = exportJobService;
 
         // Solo ancho completo, altura automática según contenido
         setWidthFull();
@@ -66,10 +54,11 @@ public class ListUsersView extends SecureView {
         // Configurar DataProvider con paginación
         configureDataProvider();
 
-        // Configurar GridExporter DESPUÉS del grid
-        configureGridExporter();
-
         add(grid);
+
+        // CSV y Excel del listado completo en segundo plano, sin pasar por el Grid
+        // No hay exportación a PDF/DOCX: se generaba en el hilo de la petición con todas las filas en memoria
+        add(new FullExportPanel(exportJobService, ExportReport.USERS));
     }
 
     private void configureGrid() {
@@ -79,14 +68,14 @@ public class ListUsersView extends SecureView {
         grid.setWidthFull();
         grid.addThemeVariants(GridVariant.LUMO_ROW_STRIPES, GridVariant.LUMO_COMPACT);
 
-        // Definir columnas y guardar referencias para el exporter
-        idColumn = grid.addColumn(Person::getId).setHeader("ID").setWidth("80px").setFlexGrow(0);
-        nameColumn = grid.addColumn(Person::getName).setHeader("Nombre").setAutoWidth(true);
-        emailColumn = grid.addColumn(Person::getEmail).setHeader("Email").setAutoWidth(true);
-        phoneColumn = grid.addColumn(Person::getPhone).setHeader("Teléfono").setAutoWidth(true);
+        // Definir columnas
+        grid.addColumn(Person::getId).setHeader("ID").setWidth("80px").setFlexGrow(0);
+        grid.addColumn(Person::getName).setHeader("Nombre").setAutoWidth(true);
+        grid.addColumn(Person::getEmail).setHeader("Email").setAutoWidth(true);
+        grid.addColumn(Person::getPhone).setHeader("Teléfono").setAutoWidth(true);
 
         // Columna que especifica el tipo de Person
-        typeColumn = grid.addColumn(person -> {
+        grid.addColumn(person -> {
             if (person instanceof Student) {
                 return "Estudiante";
             } else if (person instanceof Professor) {
@@ -97,7 +86,7 @@ public class ListUsersView extends SecureView {
         }).setHeader("Tipo").setAutoWidth(true);
 
         // Columna condicional, student number para estudiante, salario para profesor
-        numberSalaryColumn = grid.addColumn(person -> {
+        grid.addColumn(person -> {
             if (person instanceof Student student) {
                 return student.getStudentNumber() != null ? student.getStudentNumber().toString() : "N/A";
             } else if (person instanceof Professor professor) {
@@ -107,7 +96,7 @@ public class ListUsersView extends SecureView {
         }).setHeader("Nro. Estudiante / Salario").setAutoWidth(true);
 
         // Columna de address
-        locationColumn = grid.addColumn(person -> {
+        grid.addColumn(person -> {
             if (person.getAddress() != null) {
                 return person.getAddress().getCity() + ", " + person.getAddress().getCountry();
             }
@@ -122,78 +111,17 @@ public class ListUsersView extends SecureView {
     }
 
     private void configureDataProvider() {
-        // Dataprovider con lazy loading y paginación
-        CallbackDataProvider<Person, Void> dataProvider = DataProvider.fromCallbacks(
-                query -> {
-                    int pageIndex = query.getPage();
-                    int pageSize = query.getPageSize();
-
-                    Page<Person> page = userService.findAllPersonsPaginated(pageIndex, pageSize);
-                    return page.getContent().stream();
-                }, query -> {
-                    return (int) userService.countPersons();
-                });
+        // Dataprovider con lazy loading y paginación por clave (id de la última fila leída)
+        CallbackDataProvider<Person, Void> dataProvider = KeysetDataProvider.of(
+                userService::findPersonsAfter,
+                userService::findPersonIdAtOffset,
+                Person::getId,
+                () -> (int) userService.countPersons());
 
         grid.setDataProvider(dataProvider);
         grid.setPageSize(PAGE_SIZE);
     }
 
-    /**
-     * Configura el GridExporter para permitir exportar los datos a Excel, CSV y
-     * PDF
-     */
-    private void configureGridExporter() {
-        GridExporter<Person> exporter = GridExporter.createFor(grid);
-
-        // Configurar título del documento exportado
-        exporter.setTitle("Listado de Usuarios del Sistema");
-
-        // Nombre del archivo con timestamp
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        exporter.setFileName("Usuarios_" + timestamp);
-
-        // Configurar valores de exportación para columnas especiales
-        // Para Student/Professor, necesitamos manejar el polimorfismo
-        // Columna de Tipo
-        exporter.setExportValue(typeColumn, person -> {
-            if (person instanceof Student) {
-                return "Estudiante";
-            } else if (person instanceof Professor) {
-                return "Profesor";
-            }
-            return "Desconocido";
-        });
-
-        // Columna de Nro. Estudiante / Salario
-        exporter.setExportValue(numberSalaryColumn, person -> {
-            if (person instanceof Student student) {
-                return student.getStudentNumber() != null
-                        ? "Nro: " + student.getStudentNumber().toString() : "N/A";
-            } else if (person instanceof Professor professor) {
-                return String.format("Salario: $%.2f", professor.getSalary());
-            }
-            return "-";
-        });
-
-        // Columna de Ubicación
-        exporter.setExportValue(locationColumn, person -> {
-            if (person.getAddress() != null) {
-                return person.getAddress().getCity() + ", "
-                        + person.getAddress().getState() + ", "
-                        + person.getAddress().getCountry();
-            }
-            return "Sin dirección";
-        });
-
-        // Configurar auto-ajuste de columnas
-        exporter.setAutoSizeColumns(true);
-
-        // Configurar charset para CSV (importante para caracteres especiales en español)
-        exporter.setCsvCharset(() -> java.nio.charset.StandardCharsets.UTF_8);
-
-        // El exporter agrega automáticamente los botones de exportación al footer del grid
-    }
-
     /*
      * Muestra un dialog con todos los detalles de la persona seleccionada
      * Para estudiantes: muestra cursos inscritos con sus notas y promedio
@@ -447,11 +375,9 @@ public class ListUsersView extends SecureView {
                         .set("transition", "box-shadow 0.2s ease")
                         .set("cursor", "default");
 
-                int totalSeats = course.getSeats().size();
-                long occupiedSeats = course.getSeats().stream()
-                        .filter(seat -> seat.getStudent() != null)
-                        .count();
-                int availableSeats = totalSeats - (int) occupiedSeats;
+                int totalSeats = course.getCapacity();
+                int occupiedSeats = course.getOccupied();
+                int availableSeats = course.getAvailableSeats();
 
                 // Título del curso
                 Span courseTitle = new Span(course.getName());
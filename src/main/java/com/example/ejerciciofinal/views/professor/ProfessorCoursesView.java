@@ -1,15 +1,22 @@
 package com.example.ejerciciofinal.views.professor;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
-import com.example.ejerciciofinal.dtos.CourseDTO;
-import com.example.ejerciciofinal.dtos.SeatDTO;
+import com.example.ejerciciofinal.dtos.BulkGradeResultDTO;
+import com.example.ejerciciofinal.dtos.CourseCardDTO;
+import com.example.ejerciciofinal.dtos.EnrollmentResultDTO;
+import com.example.ejerciciofinal.dtos.RosterEntryDTO;
 import com.example.ejerciciofinal.dtos.StudentSearchDTO;
-import com.example.ejerciciofinal.model.Professor;
 import com.example.ejerciciofinal.security.AuthService;
 import com.example.ejerciciofinal.security.ProfessorOnly;
 import com.example.ejerciciofinal.security.SecureView;
+import com.example.ejerciciofinal.services.BulkGradeService;
+import com.example.ejerciciofinal.services.CourseCardService;
 import com.example.ejerciciofinal.services.CourseService;
+import com.example.ejerciciofinal.services.EditConflictException;
 import com.example.ejerciciofinal.services.UserService;
 import com.example.ejerciciofinal.views.MainLayout;
 import com.vaadin.flow.component.button.Button;
@@ -18,6 +25,7 @@ import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.confirmdialog.ConfirmDialog;
 import com.vaadin.flow.component.dependency.CssImport;
 import com.vaadin.flow.component.dialog.Dialog;
+import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.html.H2;
 import com.vaadin.flow.component.html.H3;
@@ -30,8 +38,10 @@ import com.vaadin.flow.component.orderedlayout.FlexComponent;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.textfield.NumberField;
+import com.vaadin.flow.component.upload.Upload;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.server.streams.UploadHandler;
 
 /**
  * Vista de ejemplo para profesores Solo accesible por usuarios con rol
@@ -46,12 +56,17 @@ public class ProfessorCoursesView extends SecureView {
     private final UserService userService;
     private final AuthService authService;
     private final CourseService courseService;
+    private final CourseCardService courseCardService;
+    private final BulkGradeService bulkGradeService;
 
-    public ProfessorCoursesView(UserService userService, AuthService authService, CourseService courseService) {
+    public ProfessorCoursesView(UserService userService, AuthService authService, CourseService courseService,
+            CourseCardService courseCardService, BulkGradeService bulkGradeService) {
 
         this.userService = userService;
         this.authService = authService;
         this.courseService = courseService;
+        this.courseCardService = courseCardService;
+        this.bulkGradeService = bulkGradeService;
 
         setSpacing(false);
         setPadding(false);
@@ -61,7 +76,7 @@ public class ProfessorCoursesView extends SecureView {
         Div mainContainer = new Div();
         mainContainer.addClassName("courses-main-container");
 
-        Long userId = AuthService.getCurrentUserId();
+        Long personId = AuthService.getCurrentPersonId();
 
         H2 title = new H2("Mis Cursos");
         title.addClassName("course-section-title");
@@ -69,22 +84,15 @@ public class ProfessorCoursesView extends SecureView {
         Div coursesGrid = new Div();
         coursesGrid.addClassName("courses-grid");
 
-        // Obtener el Professor usando el método correcto que maneja el proxy de Hibernate
-        Professor professor = userService.getProfessorByUserId(userId);
+        // Tarjetas de todos los cursos del profesor (ya ordenadas alfabéticamente por nombre)
+        List<CourseCardDTO> courses = courseCardService.getProfessorCards(personId);
 
-        // Ordenar cursos alfabéticamente por nombre
-        List<Long> courseIds = professor.getCourses().stream()
-                .sorted((c1, c2) -> c1.getName().compareToIgnoreCase(c2.getName()))
-                .map(course -> course.getId())
-                .distinct()
-                .toList();
-
-        if (courseIds.isEmpty()) {
+        if (courses.isEmpty()) {
             Div emptyState = createEmptyState();
             mainContainer.add(title, emptyState);
         } else {
-            for (Long courseId : courseIds) {
-                Div courseCard = createCourseCard(courseId);
+            for (CourseCardDTO course : courses) {
+                Div courseCard = createCourseCard(course);
                 coursesGrid.add(courseCard);
             }
             mainContainer.add(title, coursesGrid);
@@ -111,26 +119,15 @@ public class ProfessorCoursesView extends SecureView {
         return emptyState;
     }
 
-    private Div createCourseCard(Long courseId) {
-        CourseDTO course = courseService.getCourseById(courseId);
+    private Div createCourseCard(CourseCardDTO course) {
+        Long courseId = course.getId();
 
-        // Calcular estadísticas del curso
-        long totalSeats = course.getSeats().size();
-        long enrolledStudents = course.getSeats().stream()
-                .filter(seat -> seat.getStudentId() != null)
-                .count();
+        // Estadísticas del curso, tomadas de los contadores del curso
+        long totalSeats = course.getCapacity();
+        long enrolledStudents = course.getOccupied();
         long availableSeats = totalSeats - enrolledStudents;
-
-        // Calcular promedio de notas del curso
-        double averageMark = course.getSeats().stream()
-                .filter(seat -> seat.getMark() != null)
-                .mapToDouble(SeatDTO::getMark)
-                .average()
-                .orElse(0.0);
-
-        long studentsWithGrades = course.getSeats().stream()
-                .filter(seat -> seat.getMark() != null)
-                .count();
+        double averageMark = course.getAverageMark();
+        long studentsWithGrades = course.getGradedCount();
 
         Div card = new Div();
         card.addClassName("course-card");
@@ -214,7 +211,15 @@ public class ProfessorCoursesView extends SecureView {
         enrollButton.addThemeVariants(ButtonVariant.LUMO_PRIMARY, ButtonVariant.LUMO_SMALL);
         enrollButton.addClickListener(e -> showEnrollStudentDialog(courseId));
 
-        studentsHeader.add(studentsTitle, enrollButton);
+        Button gradesButton = new Button("Cargar notas", new Icon(VaadinIcon.EDIT));
+        gradesButton.addThemeVariants(ButtonVariant.LUMO_SMALL);
+        gradesButton.setEnabled(enrolledStudents > 0);
+        gradesButton.addClickListener(e -> showBulkGradeDialog(course));
+
+        HorizontalLayout headerButtons = new HorizontalLayout(gradesButton, enrollButton);
+        headerButtons.setSpacing(true);
+
+        studentsHeader.add(studentsTitle, headerButtons);
         studentsSection.add(studentsHeader);
 
         if (enrolledStudents > 0) {
@@ -227,13 +232,11 @@ public class ProfessorCoursesView extends SecureView {
                     .set("overflow-y", "auto")
                     .set("padding", "var(--lumo-space-xs)");
 
-            course.getSeats().stream()
-                    .filter(seat -> seat.getStudentId() != null)
-                    .sorted((s1, s2) -> s1.getStudentName().compareToIgnoreCase(s2.getStudentName()))
-                    .forEach(seat -> {
-                        Div studentRow = createStudentRow(seat, courseId);
-                        studentsList.add(studentRow);
-                    });
+            // El roster ya viene ordenado por nombre del estudiante
+            course.getRoster().forEach(seat -> {
+                Div studentRow = createStudentRow(seat, courseId);
+                studentsList.add(studentRow);
+            });
 
             studentsSection.add(studentsList);
         } else {
@@ -251,7 +254,7 @@ public class ProfessorCoursesView extends SecureView {
         return card;
     }
 
-    private Div createStudentRow(SeatDTO seat, Long courseId) {
+    private Div createStudentRow(RosterEntryDTO seat, Long courseId) {
         Div row = new Div();
         row.addClassName("students-table-row");
 
@@ -360,17 +363,9 @@ public class ProfessorCoursesView extends SecureView {
         studentComboBox.setPlaceholder("Buscar por ID, nombre o número de estudiante");
         studentComboBox.setItemLabelGenerator(StudentSearchDTO::getDisplayLabel);
 
-        // Cargar todos los estudiantes
-        List<StudentSearchDTO> allStudents = userService.getAllStudentsForSearch();
-
-        // Configurar filtrado
-        studentComboBox.setItems(query -> {
-            String filter = query.getFilter().orElse("").toLowerCase();
-            return allStudents.stream()
-                    .filter(student -> student.matchesFilter(filter))
-                    .skip(query.getOffset())
-                    .limit(query.getLimit());
-        });
+        // Filtrado y paginado en la base: el combobox pide solo la página visible
+        studentComboBox.setItems(query -> userService.searchStudents(
+                query.getFilter().orElse(""), query.getOffset(), query.getLimit()).stream());
 
         // Botones
         HorizontalLayout buttonLayout = new HorizontalLayout();
@@ -396,8 +391,15 @@ public class ProfessorCoursesView extends SecureView {
                 }
 
                 // Inscribir al estudiante
-                courseService.assignStudentToCourse(selectedStudent.getId(), courseId);
-                showSuccessNotification("Estudiante inscrito exitosamente");
+                EnrollmentResultDTO result = courseService.assignStudentToCourse(selectedStudent.getId(), courseId);
+                if (result.getStatus() == EnrollmentResultDTO.Status.WAITLISTED) {
+                    showSuccessNotification("Curso lleno: el estudiante quedó en la lista de espera (posición "
+                            + result.getWaitlistPosition() + ")");
+                } else if (result.getStatus() == EnrollmentResultDTO.Status.PENDING) {
+                    showSuccessNotification("La inscripción sigue en proceso y puede completarse en unos segundos");
+                } else {
+                    showSuccessNotification("Estudiante inscrito exitosamente");
+                }
                 dialog.close();
                 refreshView();
             } catch (Exception ex) {
@@ -416,7 +418,7 @@ public class ProfessorCoursesView extends SecureView {
     /**
      * Muestra un diálogo para editar la nota de un estudiante
      */
-    private void showEditGradeDialog(SeatDTO seat, Long courseId) {
+    private void showEditGradeDialog(RosterEntryDTO seat, Long courseId) {
         Dialog dialog = new Dialog();
         dialog.setHeaderTitle("Asignar nota a " + seat.getStudentName());
         dialog.setModal(true);
@@ -465,10 +467,15 @@ public class ProfessorCoursesView extends SecureView {
             try {
                 // Llamar al servicio para actualizar la nota
                 // Esto también recalculará el promedio del estudiante
-                courseService.setMarkToStudentInCourse(courseId, seat.getStudentId(), newGrade);
+                courseService.setMarkToStudentInCourse(courseId, seat.getStudentId(), newGrade, seat.getSeatVersion());
                 showSuccessNotification("Nota asignada exitosamente");
                 dialog.close();
                 refreshView();
+            } catch (EditConflictException ex) {
+                // Otro usuario cambió la nota mientras el diálogo estaba abierto: se muestra la nota actual
+                showErrorNotification(ex.getMessage());
+                dialog.close();
+                refreshView();
             } catch (Exception ex) {
                 showErrorNotification("Error al asignar nota: " + ex.getMessage());
             }
@@ -482,6 +489,116 @@ public class ProfessorCoursesView extends SecureView {
         dialog.open();
     }
 
+    /**
+     * Muestra un diálogo con la grilla editable de notas del curso y la opción de subir un CSV
+     * Solo se envían las notas que cambiaron, todas juntas en una única operación
+     */
+    private void showBulkGradeDialog(CourseCardDTO course) {
+        Long courseId = course.getId();
+
+        Dialog dialog = new Dialog();
+        dialog.setHeaderTitle("Notas de " + course.getName());
+        dialog.setModal(true);
+        dialog.setDraggable(true);
+        dialog.setWidth("700px");
+
+        VerticalLayout dialogLayout = new VerticalLayout();
+        dialogLayout.setPadding(true);
+        dialogLayout.setSpacing(true);
+
+        // Notas modificadas por ID de estudiante (null borra la nota) y versión del Seat que se mostró
+        Map<Long, Double> editedMarks = new HashMap<>();
+        Map<Long, Long> expectedVersions = new HashMap<>();
+
+        Grid<RosterEntryDTO> gradesGrid = new Grid<>(RosterEntryDTO.class, false);
+        gradesGrid.addColumn(RosterEntryDTO::getStudentName).setHeader("Estudiante").setAutoWidth(true);
+        gradesGrid.addColumn(RosterEntryDTO::getStudentNumber).setHeader("Número").setAutoWidth(true);
+        gradesGrid.addComponentColumn(seat -> {
+            NumberField markField = new NumberField();
+            markField.setMin(0.0);
+            markField.setMax(10.0);
+            markField.setStep(0.01);
+            markField.setWidth("100px");
+            markField.setValue(editedMarks.containsKey(seat.getStudentId())
+                    ? editedMarks.get(seat.getStudentId()) : seat.getMark());
+            markField.addValueChangeListener(e -> {
+                if (Objects.equals(e.getValue(), seat.getMark())) {
+                    editedMarks.remove(seat.getStudentId());
+                    expectedVersions.remove(seat.getStudentId());
+                } else {
+                    editedMarks.put(seat.getStudentId(), e.getValue());
+                    expectedVersions.put(seat.getStudentId(), seat.getSeatVersion());
+                }
+            });
+            return markField;
+        }).setHeader("Nota").setFlexGrow(0).setWidth("130px");
+        gradesGrid.setItems(course.getRoster());
+        gradesGrid.setHeight("350px");
+
+        // CSV con dos columnas: estudiante (ID o número) y nota, se procesa mientras se recibe
+        UploadHandler csvHandler = event -> {
+            try {
+                BulkGradeResultDTO result = bulkGradeService.postGradesFromCsv(courseId, event.getInputStream());
+                event.getUI().access(() -> {
+                    showBulkGradeResult(result);
+                    dialog.close();
+                    refreshView();
+                });
+            } catch (IllegalArgumentException ex) {
+                event.getUI().access(() -> showErrorNotification("Error al cargar el archivo: " + ex.getMessage()));
+            }
+        };
+        Upload csvUpload = new Upload(csvHandler);
+        csvUpload.setAcceptedFileTypes(".csv", ".tsv", ".txt", "text/csv", "text/tab-separated-values", "text/plain");
+        csvUpload.setMaxFiles(1);
+        csvUpload.setWidthFull();
+
+        Span csvHelp = new Span("O suba un CSV con dos columnas: ID o número de estudiante, nota");
+        csvHelp.getStyle().set("color", "var(--lumo-contrast-70pct)").set("font-size", "var(--lumo-font-size-s)");
+
+        HorizontalLayout buttonLayout = new HorizontalLayout();
+        buttonLayout.setWidthFull();
+        buttonLayout.setJustifyContentMode(FlexComponent.JustifyContentMode.END);
+        buttonLayout.setSpacing(true);
+
+        Button cancelButton = new Button("Cancelar", e -> dialog.close());
+
+        Button saveButton = new Button("Guardar notas", e -> {
+            if (editedMarks.isEmpty()) {
+                showErrorNotification("No hay notas modificadas");
+                return;
+            }
+            try {
+                BulkGradeResultDTO result = bulkGradeService.postGrades(courseId, editedMarks, expectedVersions);
+                showBulkGradeResult(result);
+                dialog.close();
+                refreshView();
+            } catch (Exception ex) {
+                showErrorNotification("Error al guardar las notas: " + ex.getMessage());
+            }
+        });
+        saveButton.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
+
+        buttonLayout.add(cancelButton, saveButton);
+        dialogLayout.add(gradesGrid, csvHelp, csvUpload, buttonLayout);
+
+        dialog.add(dialogLayout);
+        dialog.open();
+    }
+
+    private void showBulkGradeResult(BulkGradeResultDTO result) {
+        String summary = result.getUpdated() + " notas actualizadas, " + result.getUnchanged() + " sin cambios";
+        if (result.getRejected().isEmpty()) {
+            showSuccessNotification(summary);
+            return;
+        }
+        // Primeros rechazos en la notificación, el resto se resume con la cantidad
+        StringBuilder details = new StringBuilder(summary + ", " + result.getRejected().size() + " rechazadas: ");
+        result.getRejected().stream().limit(5).forEach(rejected ->
+                details.append(rejected.getIdentifier()).append(" (").append(rejected.getReason()).append("); "));
+        showErrorNotification(details.toString());
+    }
+
     /**
      * Muestra una notificación de éxito
      */
@@ -75,13 +75,14 @@ public class EditProfileView extends SecureView {
     }
 
     private void loadUserData() {
-        Long userId = AuthService.getCurrentUserId();
+        // El ID de la persona se resolvió al hacer login, no hace falta pasar por User
+        Long personId = AuthService.getCurrentPersonId();
         Role role = AuthService.getCurrentRole();
         
         if (role == Role.STUDENT) {
-            this.person = userService.getStudentByUserId(userId);
+            this.person = userService.getStudentById(personId);
         } else if (role == Role.PROFESSOR) {
-            this.person = userService.getProfessorByUserId(userId);
+            this.person = userService.getProfessorById(personId);
         }
         
         // Cargar datos en el formulario
@@ -2,11 +2,10 @@ package com.example.ejerciciofinal.views.student;
 
 import java.util.List;
 
-import com.example.ejerciciofinal.dtos.CourseDTO;
-import com.example.ejerciciofinal.dtos.SeatDTO;
-import com.example.ejerciciofinal.model.Student;
+import com.example.ejerciciofinal.dtos.CourseCardDTO;
 import com.example.ejerciciofinal.security.AuthService;
 import com.example.ejerciciofinal.security.StudentOnly;
+import com.example.ejerciciofinal.services.CourseCardService;
 import com.example.ejerciciofinal.services.CourseService;
 import com.example.ejerciciofinal.services.UserService;
 import com.example.ejerciciofinal.security.SecureView;
@@ -33,12 +32,15 @@ public class StudentCoursesView extends SecureView {
     private final UserService userService;
     private final AuthService authService;
     private final CourseService courseService;
+    private final CourseCardService courseCardService;
 
-    public StudentCoursesView(UserService userService, AuthService authService, CourseService courseService) {
+    public StudentCoursesView(UserService userService, AuthService authService, CourseService courseService,
+            CourseCardService courseCardService) {
 
         this.userService = userService;
         this.authService = authService;
         this.courseService = courseService;
+        this.courseCardService = courseCardService;
 
         setSpacing(false);
         setPadding(false);
@@ -48,25 +50,22 @@ public class StudentCoursesView extends SecureView {
         Div mainContainer = new Div();
         mainContainer.addClassName("courses-main-container");
 
-        Long userId = AuthService.getCurrentUserId();
+        Long personId = AuthService.getCurrentPersonId();
 
         H2 title = new H2("Mis Cursos");
         title.addClassName("course-section-title");
         Div coursesGrid = new Div();
         coursesGrid.addClassName("courses-grid");
 
-        Student student = userService.getStudentByUserId(userId);
-        List<Long> courseIds = student.getSeats().stream()
-                .map(seat -> seat.getCourse().getId())
-                .distinct()
-                .toList();
+        // Tarjetas de todos los cursos del estudiante, con su nota en cada uno
+        List<CourseCardDTO> courses = courseCardService.getStudentCards(personId);
 
-        if (courseIds.isEmpty()) {
+        if (courses.isEmpty()) {
             Div emptyState = createEmptyState();
             mainContainer.add(title, emptyState);
         } else {
-            for (Long courseId : courseIds) {
-                Div courseCard = createCourseCard(courseId, student);
+            for (CourseCardDTO course : courses) {
+                Div courseCard = createCourseCard(course);
                 coursesGrid.add(courseCard);
             }
             mainContainer.add(title, coursesGrid);
@@ -93,15 +92,7 @@ public class StudentCoursesView extends SecureView {
         return emptyState;
     }
 
-    private Div createCourseCard(Long courseId, Student student) {
-        CourseDTO course = courseService.getCourseById(courseId);
-        
-        // Encontrar el seat del estudiante en este curso
-        SeatDTO studentSeat = course.getSeats().stream()
-                .filter(seat -> seat.getStudentId() != null && seat.getStudentId().equals(student.getId()))
-                .findFirst()
-                .orElse(null);
-
+    private Div createCourseCard(CourseCardDTO course) {
         Div card = new Div();
         card.addClassName("course-card");
         
@@ -113,9 +104,9 @@ public class StudentCoursesView extends SecureView {
 
         // Información de la nota
         Div markInfo;
-        if (studentSeat != null && studentSeat.getMark() != null) {
-            String markText = String.format("%.2f", studentSeat.getMark());
-            String markColor = getMarkColor(studentSeat.getMark());
+        if (course.getStudentMark() != null) {
+            String markText = String.format("%.2f", course.getStudentMark());
+            String markColor = getMarkColor(course.getStudentMark());
             markInfo = createInfoRow(VaadinIcon.CLIPBOARD_TEXT, "Calificación", markText);
             
             // Colorear la nota según el valor
@@ -147,15 +138,13 @@ public class StudentCoursesView extends SecureView {
 
         // Año de inscripción
         Div yearInfo = null;
-        if (studentSeat != null && studentSeat.getYear() != null) {
-            String yearText = String.valueOf(studentSeat.getYear().getYear());
+        if (course.getStudentYear() != null) {
+            String yearText = String.valueOf(course.getStudentYear().getYear());
             yearInfo = createInfoRow(VaadinIcon.CALENDAR, "Año de inscripción", yearText);
         }
 
         // Cantidad de estudiantes inscritos
-        long enrolledCount = course.getSeats().stream()
-                .filter(seat -> seat.getStudentId() != null)
-                .count();
+        long enrolledCount = course.getOccupied();
         Div studentsInfo = createInfoRow(VaadinIcon.GROUP, "Estudiantes inscritos", String.valueOf(enrolledCount));
 
         card.add(courseTitle, professorInfo, markInfo);
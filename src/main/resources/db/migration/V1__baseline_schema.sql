@@ -0,0 +1,89 @@
+-- Esquema inicial, igual al que generaba Hibernate con ddl-auto=update
+-- Las bases creadas antes de Flyway no ejecutan este script: se marcan en esta versión (baseline-on-migrate)
+-- Los IDs siguen siendo identity: UserImportService reserva IDs con pg_get_serial_sequence
+
+create sequence seats_seq start with 1 increment by 50;
+
+create table addresses (
+    id bigint generated by default as identity,
+    city varchar(255) not null,
+    country varchar(255) not null,
+    state varchar(255) not null,
+    street varchar(255) not null,
+    primary key (id)
+);
+
+create table persons (
+    address_id bigint unique,
+    id bigint generated by default as identity,
+    email varchar(255) not null unique,
+    name varchar(255) not null,
+    phone varchar(255) not null,
+    primary key (id)
+);
+
+create table professors (
+    salary float(53) not null,
+    id bigint not null,
+    primary key (id)
+);
+
+create table students (
+    avg_mark float(53) not null,
+    graded_count integer default 0 not null,
+    mark_sum double precision default 0 not null,
+    id bigint not null,
+    student_number uuid not null unique,
+    primary key (id)
+);
+
+create table courses (
+    capacity integer default 0 not null,
+    graded_count integer default 0 not null,
+    mark_sum double precision default 0 not null,
+    occupied integer default 0 not null,
+    id bigint generated by default as identity,
+    professor_id bigint not null,
+    name varchar(255) not null,
+    primary key (id)
+);
+
+create table seats (
+    mark float(53),
+    year date not null,
+    course_id bigint not null,
+    id bigint not null,
+    student_id bigint,
+    primary key (id),
+    constraint uk_seats_student_course_year unique (student_id, course_id, year)
+);
+
+create table users (
+    id bigint generated by default as identity,
+    person_id bigint unique,
+    password varchar(255) not null,
+    role varchar(255) not null check (role in ('ADMIN','STUDENT','PROFESSOR')),
+    username varchar(255) not null unique,
+    primary key (id)
+);
+
+alter table courses
+    add constraint FKsj4okul9jc8m3p4tsnuobqjpb foreign key (professor_id) references professors;
+
+alter table persons
+    add constraint FKhpk0ck378u9nar5y4b4cwb8sd foreign key (address_id) references addresses;
+
+alter table professors
+    add constraint FK853biff0cu8tdp49rjs3ug0ai foreign key (id) references persons;
+
+alter table seats
+    add constraint FK12162cnpny7phqbg128fmujnm foreign key (course_id) references courses;
+
+alter table seats
+    add constraint FKmkpimi0n38nnxjd6ysvehlort foreign key (student_id) references students;
+
+alter table students
+    add constraint FK9nqs0pkter5l6no6n9v93uyau foreign key (id) references persons;
+
+alter table users
+    add constraint FKmvbq8q4vpi6csivw9wcnq6ho5 foreign key (person_id) references persons;
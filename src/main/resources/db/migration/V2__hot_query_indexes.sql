@@ -0,0 +1,46 @@
+-- Datos de las versiones anteriores a la columna capacity (antes se aplicaba en cada arranque):
+-- los cursos tenían un Seat vacío por cupo, la capacidad pasa a ser la cantidad de Seat y se eliminan los vacíos
+update courses c set capacity = (select count(*) from seats s where s.course_id = c.id)
+where c.capacity = 0;
+
+delete from seats where student_id is null;
+
+-- ===== seats =====
+-- uk_seats_student_course_year (student_id, course_id, year) ya cubre las búsquedas por estudiante
+-- y por estudiante + curso (findByStudentId, existsByStudentIdAndCourseId, findCardsByStudentId)
+
+-- Inscritos de un curso: findByCourseId, findEnrollmentsByCourseId (solo índice, incluye mark),
+-- findForGrading, deleteByCourseIdAndStudentIdIn, findRosterByCourseId, removeCourseMarks
+-- y la agregación por curso de CourseRepository.reconcileCounters
+create index if not exists ix_seats_course_student on seats (course_id, student_id) include (mark);
+
+-- ===== courses =====
+-- Cursos de un profesor: findByProfessorId, findCardsByProfessorId, findRosterByProfessorId
+create index if not exists ix_courses_professor on courses (professor_id);
+
+-- Selector de cursos (LookupService): ORDER BY name, id
+create index if not exists ix_courses_name on courses (name, id);
+
+-- ===== persons =====
+-- findAllStudentsForSearch, searchStudents y el selector de profesores: ORDER BY name, id
+create index if not exists ix_persons_name on persons (name, id);
+
+-- ===== búsqueda por texto (ILIKE '%...%') =====
+-- Índices trigram; si el usuario de la base no puede instalar pg_trgm la migración sigue sin ellos
+-- y las búsquedas recorren la tabla
+do $$
+begin
+    begin
+        create extension if not exists pg_trgm;
+    exception when insufficient_privilege or undefined_file then
+        raise notice 'No se pudo instalar pg_trgm, se omiten los índices de búsqueda por texto';
+    end;
+
+    if exists (select 1 from pg_extension where extname = 'pg_trgm') then
+        create index if not exists ix_persons_name_trgm on persons using gin (name gin_trgm_ops);
+        create index if not exists ix_students_student_number_trgm
+            on students using gin ((cast(student_number as text)) gin_trgm_ops);
+        create index if not exists ix_courses_name_trgm on courses using gin (name gin_trgm_ops);
+    end if;
+end
+$$;
@@ -0,0 +1,6 @@
+-- Columnas de versión para el control de concurrencia optimista (@Version) de Seat, Course y Person
+-- (Student y Professor usan la de persons, la raíz de su jerarquía)
+-- Las filas existentes empiezan en 0
+alter table seats add column version bigint default 0 not null;
+alter table courses add column version bigint default 0 not null;
+alter table persons add column version bigint default 0 not null;
@@ -0,0 +1,21 @@
+-- Lista de espera por curso (WaitlistEntry), en orden de llegada por id
+create table waitlist_entries (
+    course_id bigint not null,
+    id bigint generated by default as identity,
+    requested_at timestamp(6) not null,
+    student_id bigint not null,
+    primary key (id),
+    constraint uk_waitlist_course_student unique (course_id, student_id)
+);
+
+alter table waitlist_entries
+    add constraint FK836jmqg8yv8svceaeg3ueccce foreign key (course_id) references courses on delete cascade;
+
+alter table waitlist_entries
+    add constraint FKkgpky92qneys8k9vh8nd0fi8s foreign key (student_id) references students on delete cascade;
+
+-- Siguientes de la lista de un curso (WaitlistRepository.findNext) y posición de una entrada
+create index ix_waitlist_course_id on waitlist_entries (course_id, id);
+
+-- Entradas de un estudiante (borrado en cascada desde students)
+create index ix_waitlist_student on waitlist_entries (student_id);
@@ -0,0 +1,15 @@
+-- Un estudiante ocupa a lo sumo un cupo por curso
+-- uk_seats_student_course_year incluía year (la fecha completa de inscripción), así que solo impedía
+-- dos inscripciones el mismo día
+
+-- Si ya hay repetidos se conserva la inscripción más reciente; CounterReconciler corrige los contadores al arrancar
+delete from seats s
+using seats newer
+where newer.student_id = s.student_id
+  and newer.course_id = s.course_id
+  and (newer.year > s.year or (newer.year = s.year and newer.id > s.id));
+
+alter table seats drop constraint uk_seats_student_course_year;
+
+-- También cubre las búsquedas por estudiante (y por estudiante y curso)
+alter table seats add constraint uk_seats_student_course unique (student_id, course_id);
@@ -0,0 +1,224 @@
+package com.example.ejerciciofinal.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.example.ejerciciofinal.model.Address;
+import com.example.ejerciciofinal.model.Course;
+import com.example.ejerciciofinal.model.Professor;
+import com.example.ejerciciofinal.model.Seat;
+import com.example.ejerciciofinal.model.Student;
+
+/**
+ * Los contadores de notas que mantienen applyMarkDelta, applyMarkDeltas y removeCourseMarks (solo diferencias)
+ * deben coincidir exactamente con el recálculo completo de reconcileMarkCounters: 0 filas corregidas
+ * H2 en modo PostgreSQL ejecuta el mismo SQL nativo (UPDATE ... FROM) que la base real
+ * Las notas son múltiplos de 0.25 (exactos en double), así las sumas y restas no tienen redondeo
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:marks;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;NON_KEYWORDS=YEAR,VALUE",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.flyway.enabled=false",
+    // Solo se prueba el SQL: sin cache de segundo nivel
+    "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+    "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class StudentRepositoryTest {
+
+    private static final int STUDENTS = 6;
+    private static final int COURSES = 4;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    private final List<Long> studentIds = new ArrayList<>();
+    private final List<Long> courseIds = new ArrayList<>();
+    // (estudiante, curso) -> ID del Seat
+    private final Map<List<Long>, Long> seats = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        Professor professor = entityManager.persist(new Professor("Profesor", "123", "profesor@example.com",
+                new Address("Calle 1", "Ciudad", "Provincia", "País"), 1000.0));
+        for (int i = 0; i < COURSES; i++) {
+            courseIds.add(entityManager.persist(new Course("Curso " + i, professor, 100)).getId());
+        }
+        for (int i = 0; i < STUDENTS; i++) {
+            Student student = new Student("Estudiante " + i, "123", "estudiante" + i + "@example.com",
+                    new Address("Calle " + i, "Ciudad", "Provincia", "País"), new HashSet<>());
+            studentIds.add(entityManager.persist(student).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void setChangeClearAndDeleteMatchFullRecalculation() {
+        Long student = studentIds.get(0);
+        enroll(student, courseIds.get(0));
+        enroll(student, courseIds.get(1));
+        assertMatchesRecalculation();
+
+        setMark(student, courseIds.get(0), 8.5);
+        assertMatchesRecalculation();
+
+        setMark(student, courseIds.get(1), 6.25);
+        assertMatchesRecalculation();
+
+        setMark(student, courseIds.get(0), 4.0);
+        assertMatchesRecalculation();
+
+        setMark(student, courseIds.get(1), null);
+        assertMatchesRecalculation();
+
+        unassign(student, courseIds.get(0));
+        assertMatchesRecalculation();
+
+        Long other = studentIds.get(1);
+        enroll(other, courseIds.get(1));
+        setMarks(courseIds.get(1), Map.of(student, 7.5, other, 5.0));
+        assertMatchesRecalculation();
+
+        setMarks(courseIds.get(1), Map.of(student, 2.25, other, 5.0));
+        assertMatchesRecalculation();
+
+        setMark(student, courseIds.get(1), 9.75);
+        removeFromCourse(courseIds.get(1), List.of(student));
+        assertMatchesRecalculation();
+    }
+
+    @Test
+    void randomSequenceMatchesFullRecalculation() {
+        Random random = new Random(42);
+        for (int step = 0; step < 2_000; step++) {
+            Long student = studentIds.get(random.nextInt(STUDENTS));
+            Long course = courseIds.get(random.nextInt(COURSES));
+            boolean enrolled = seats.containsKey(List.of(student, course));
+            int operation = random.nextInt(10);
+
+            if (!enrolled) {
+                enroll(student, course);
+            } else if (operation < 5) {
+                setMark(student, course, random.nextInt(5) == 0 ? null : random.nextInt(41) * 0.25);
+            } else if (operation < 6) {
+                // Carga masiva de notas del curso a una parte de los inscritos
+                Map<Long, Double> marks = new HashMap<>();
+                for (Long candidate : studentIds) {
+                    if (seats.containsKey(List.of(candidate, course)) && random.nextBoolean()) {
+                        marks.put(candidate, random.nextInt(5) == 0 ? null : random.nextInt(41) * 0.25);
+                    }
+                }
+                if (!marks.isEmpty()) {
+                    setMarks(course, marks);
+                }
+            } else if (operation < 8) {
+                unassign(student, course);
+            } else {
+                // Baja masiva de una parte de los inscritos del curso (sincronización de la inscripción masiva)
+                List<Long> removed = new ArrayList<>();
+                for (Long candidate : studentIds) {
+                    if (seats.containsKey(List.of(candidate, course)) && random.nextBoolean()) {
+                        removed.add(candidate);
+                    }
+                }
+                if (!removed.isEmpty()) {
+                    removeFromCourse(course, removed);
+                }
+            }
+            assertMatchesRecalculation();
+        }
+    }
+
+    private void enroll(Long studentId, Long courseId) {
+        Seat seat = entityManager.persist(new Seat(LocalDate.now(), null,
+                entityManager.getEntityManager().getReference(Student.class, studentId),
+                entityManager.getEntityManager().getReference(Course.class, courseId)));
+        entityManager.flush();
+        seats.put(List.of(studentId, courseId), seat.getId());
+    }
+
+    // Igual que CourseService.applyMark
+    private void setMark(Long studentId, Long courseId, Double mark) {
+        Seat seat = entityManager.find(Seat.class, seats.get(List.of(studentId, courseId)));
+        Double previousMark = seat.getMark();
+        seat.setMark(mark);
+        entityManager.flush();
+        studentRepository.applyMarkDelta(studentId, gradedDelta(previousMark, mark), markDelta(previousMark, mark));
+    }
+
+    // Igual que BulkGradeService: un UPDATE de los Seat por estudiante y una sola sentencia con las diferencias
+    private void setMarks(Long courseId, Map<Long, Double> marks) {
+        List<Long> ids = new ArrayList<>();
+        List<Integer> gradedDeltas = new ArrayList<>();
+        List<Double> markDeltas = new ArrayList<>();
+        marks.forEach((studentId, mark) -> {
+            Seat seat = entityManager.find(Seat.class, seats.get(List.of(studentId, courseId)));
+            Double previousMark = seat.getMark();
+            seat.setMark(mark);
+            ids.add(studentId);
+            gradedDeltas.add(gradedDelta(previousMark, mark));
+            markDeltas.add(markDelta(previousMark, mark));
+        });
+        entityManager.flush();
+        studentRepository.applyMarkDeltas(ids.toArray(Long[]::new), gradedDeltas.toArray(Integer[]::new),
+                markDeltas.toArray(Double[]::new));
+    }
+
+    // Igual que CourseService.removeSeat
+    private void unassign(Long studentId, Long courseId) {
+        Seat seat = entityManager.find(Seat.class, seats.remove(List.of(studentId, courseId)));
+        Double mark = seat.getMark();
+        entityManager.remove(seat);
+        entityManager.flush();
+        if (mark != null) {
+            studentRepository.applyMarkDelta(studentId, gradedDelta(mark, null), markDelta(mark, null));
+        }
+    }
+
+    // Igual que las bajas de BulkEnrollmentService: las notas se descuentan antes de eliminar los Seat
+    private void removeFromCourse(Long courseId, List<Long> removed) {
+        entityManager.flush();
+        studentRepository.removeCourseMarks(courseId, removed);
+        seatRepository.deleteByCourseIdAndStudentIdIn(courseId, removed);
+        removed.forEach(studentId -> seats.remove(List.of(studentId, courseId)));
+        entityManager.clear();
+    }
+
+    private void assertMatchesRecalculation() {
+        entityManager.flush();
+        assertEquals(0, studentRepository.reconcileMarkCounters(studentIds));
+    }
+
+    private static int gradedDelta(Double previousMark, Double newMark) {
+        return (newMark != null ? 1 : 0) - (previousMark != null ? 1 : 0);
+    }
+
+    private static double markDelta(Double previousMark, Double newMark) {
+        return (newMark != null ? newMark : 0.0) - (previousMark != null ? previousMark : 0.0);
+    }
+}